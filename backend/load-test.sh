@@ -0,0 +1,25 @@
+#!/bin/sh
+# Compares throughput and latency of a running backend, e.g. once with the
+# default profile and once with virtual-threads. Needs `hey`
+# (https://github.com/rakyll/hey).
+#
+#   ./load-test.sh http://localhost:8080 42
+#
+# The second argument is the id of an existing invoice to download.
+set -e
+
+BASE_URL=${1:-http://localhost:8080}
+INVOICE_ID=${2:-1}
+REQUESTS=${REQUESTS:-2000}
+CONCURRENCY=${CONCURRENCY:-100}
+
+run() {
+    echo "== $1"
+    hey -n "$REQUESTS" -c "$CONCURRENCY" "$BASE_URL$1" \
+        | grep -E "Requests/sec|50% in|99% in|\[[0-9]+\]"
+}
+
+run "/api/invoices?size=50"
+run "/api/invoices/$INVOICE_ID"
+run "/api/invoices/$INVOICE_ID/pdf"
+run "/api/invoices/$INVOICE_ID/excel"
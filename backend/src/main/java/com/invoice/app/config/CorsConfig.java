@@ -1,7 +1,9 @@
 package com.invoice.app.config;
 
+import com.invoice.app.controller.InvoiceController;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -18,6 +20,8 @@ public class CorsConfig {
         config.addAllowedOriginPattern("*");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader(InvoiceController.NEXT_CURSOR_HEADER);
+        config.addExposedHeader(HttpHeaders.ETAG);
         
         source.registerCorsConfiguration("/api/**", config);
         return new CorsFilter(source);
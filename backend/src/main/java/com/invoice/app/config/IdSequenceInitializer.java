@@ -0,0 +1,88 @@
+package com.invoice.app.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the id sequences past ids that are already in use.
+ *
+ * Invoices and items used to get IDENTITY ids; they now come from pooled
+ * sequences so Hibernate can batch inserts. On a database created before the
+ * switch, the sequences Hibernate adds start at 1 while the tables already
+ * hold rows, so they are moved above the highest id. On databases without
+ * sequences (MySQL) Hibernate keeps them in one-row tables of the same name,
+ * and those rows are moved instead. This runs on every startup and only ever
+ * moves a sequence forward; on H2 and PostgreSQL it reads the sequence
+ * without using up a block of ids.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer {
+
+    /** Must match allocationSize on the entities' @SequenceGenerator. */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final String[][] SEQUENCES = {
+            {"invoices_seq", "invoices"},
+            {"invoice_items_seq", "invoice_items"}
+    };
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void synchronize() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SequenceSupport sequenceSupport = dialect.getSequenceSupport();
+
+        for (String[] sequence : SEQUENCES) {
+            String sequenceName = sequence[0];
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + sequence[1], Long.class);
+            if (maxId == null) {
+                continue;
+            }
+            // With the pooled optimizer a fetched value v hands out ids v - 49 .. v,
+            // so the next value must be at least maxId + 50
+            long required = maxId + ALLOCATION_SIZE;
+            if (!sequenceSupport.supportsSequences()) {
+                moveTableSequence(sequenceName, required);
+            } else if (nextValue(dialect, sequenceName) < required) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + required);
+            }
+        }
+    }
+
+    /**
+     * Raises the value in a table that stands in for a sequence to at least
+     * {@code required}. Hibernate's table sequences keep it in {@code next_val}.
+     */
+    void moveTableSequence(String tableName, long required) {
+        jdbcTemplate.update("UPDATE " + tableName + " SET next_val = ? WHERE next_val < ?", required, required);
+    }
+
+    /**
+     * The value the sequence will return next. Other databases than H2 and
+     * PostgreSQL have no common way to read it, so there a value is fetched,
+     * which skips one block of ids.
+     */
+    private long nextValue(Dialect dialect, String sequenceName) {
+        if (dialect instanceof H2Dialect) {
+            return jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES " +
+                    "WHERE LOWER(SEQUENCE_NAME) = ?", Long.class, sequenceName);
+        }
+        if (dialect instanceof PostgreSQLDialect) {
+            return jdbcTemplate.queryForObject("SELECT CASE WHEN is_called THEN last_value + " + ALLOCATION_SIZE +
+                    " ELSE last_value END FROM " + sequenceName, Long.class);
+        }
+        return jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequenceName),
+                Long.class);
+    }
+}
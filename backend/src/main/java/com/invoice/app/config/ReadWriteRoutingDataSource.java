@@ -0,0 +1,43 @@
+package com.invoice.app.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the read pool and
+ * everything else, including statements run outside a transaction, to the
+ * write pool.
+ *
+ * The transaction manager opens its connection before it marks the
+ * transaction read-only, so the router must sit behind a
+ * {@link LazyConnectionDataSourceProxy}; use {@link #create} rather than the
+ * constructor.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+
+    private ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        setTargetDataSources(Map.of(WRITE, writeDataSource, READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes between the two pools, picking one when the first statement of a
+     * transaction runs.
+     */
+    public static DataSource create(DataSource writeDataSource, DataSource readDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(writeDataSource, readDataSource));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? READ : WRITE;
+    }
+}
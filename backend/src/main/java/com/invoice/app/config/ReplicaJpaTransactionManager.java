@@ -0,0 +1,47 @@
+package com.invoice.app.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA transaction manager for a primary with a replica behind it.
+ *
+ * Read-only transactions read from the replica, which may lag behind the
+ * primary. Entities they load must not go into the second-level cache, which
+ * is shared with writing transactions: a stale row put there would be served
+ * as current until it is next updated. Such transactions still read from the
+ * cache, they just never add to it.
+ */
+public class ReplicaJpaTransactionManager extends JpaTransactionManager {
+
+    static final String CACHE_STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (definition.isReadOnly()) {
+            currentEntityManager().setProperty(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        // With open-in-view the entity manager outlives the transaction and may
+        // be used by a writing one next
+        EntityManager entityManager = currentEntityManager();
+        if (entityManager != null && entityManager.isOpen()) {
+            entityManager.setProperty(CACHE_STORE_MODE, CacheStoreMode.USE);
+        }
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private EntityManager currentEntityManager() {
+        EntityManagerHolder holder = (EntityManagerHolder)
+                TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        return holder != null ? holder.getEntityManager() : null;
+    }
+}
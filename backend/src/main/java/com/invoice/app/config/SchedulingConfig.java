@@ -0,0 +1,12 @@
+package com.invoice.app.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} refresh of the client search index.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,37 @@
+package com.invoice.app.controller;
+
+import com.invoice.app.dto.CacheRegionStatsDTO;
+import com.invoice.app.dto.DocumentCacheStatsDTO;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.EntityCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final EntityCacheService entityCacheService;
+    private final DocumentCache documentCache;
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStatsDTO>> getStatistics() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+
+    @GetMapping("/documents/stats")
+    public ResponseEntity<DocumentCacheStatsDTO> getDocumentStatistics() {
+        return ResponseEntity.ok(documentCache.getStatistics());
+    }
+
+    @PostMapping("/evict")
+    public ResponseEntity<Void> evictAll() {
+        entityCacheService.evictAll();
+        documentCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,8 +3,10 @@ package com.invoice.app.controller;
 import com.invoice.app.dto.ClientDTO;
 import com.invoice.app.service.ClientService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @RestController
@@ -26,24 +28,41 @@ public class ClientController {
     @PostMapping
     public ResponseEntity<ClientDTO> createClient(@RequestBody ClientDTO clientDTO) {
         ClientDTO created = clientService.createClient(clientDTO);
-        return ResponseEntity.ok(created);
+        return ResponseEntity.ok().eTag(EntityTags.of(created.getVersion())).body(created);
     }
 
+    /**
+     * Answers 304 when If-None-Match names the current version.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<ClientDTO> getClient(@PathVariable Long id) {
+    public ResponseEntity<ClientDTO> getClient(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(EntityTags.of(clientService.getClientVersion(id)))) {
+            return null;
+        }
         ClientDTO client = clientService.getClient(id);
-        return ResponseEntity.ok(client);
+        return ResponseEntity.ok().eTag(EntityTags.of(client.getVersion())).body(client);
     }
 
+    /**
+     * With {@code fields=name,gstNumber} returns only those fields (and the
+     * id) of each client.
+     */
     @GetMapping
-    public ResponseEntity<List<ClientDTO>> getAllClients() {
+    public ResponseEntity<List<?>> getAllClients(@RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(clientService.getAllClientFields(fields));
+        }
         List<ClientDTO> clients = clientService.getAllClients();
         return ResponseEntity.ok(clients);
     }
 
+    /**
+     * With If-Match, answers 412 unless the client still has that version.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<ClientDTO> updateClient(@PathVariable Long id, @RequestBody ClientDTO clientDTO) {
-        ClientDTO updated = clientService.updateClient(id, clientDTO);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<ClientDTO> updateClient(@PathVariable Long id, @RequestBody ClientDTO clientDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ClientDTO updated = clientService.updateClient(id, clientDTO, EntityTags.ifMatchVersion(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated);
     }
 }
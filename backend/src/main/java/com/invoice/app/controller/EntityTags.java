@@ -0,0 +1,37 @@
+package com.invoice.app.controller;
+
+import com.invoice.app.config.GlobalExceptionHandler;
+
+/**
+ * ETags for versioned records: the entity's {@code @Version} value in quotes,
+ * e.g. {@code "3"}.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * The version named by an If-Match header, or null when the header is
+     * absent or {@code *} and any version may be replaced. Weak and
+     * unparseable tags can never match, so they fail the precondition.
+     */
+    static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Fall through to the precondition failure below
+            }
+        }
+        throw new GlobalExceptionHandler.PreconditionFailedException("If-Match does not name a current version: " + tag);
+    }
+}
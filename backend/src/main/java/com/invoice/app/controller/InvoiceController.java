@@ -1,18 +1,38 @@
 package com.invoice.app.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.app.config.GlobalExceptionHandler;
 import com.invoice.app.dto.InvoiceDTO;
+import com.invoice.app.dto.InvoicePageDTO;
 import com.invoice.app.dto.MonthlyStatementDTO;
 import com.invoice.app.entity.Invoice;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.DocumentCache.DocumentType;
 import com.invoice.app.service.ExcelGenerationService;
+import com.invoice.app.service.InvoicePdfBundleService;
 import com.invoice.app.service.InvoiceService;
 import com.invoice.app.service.PdfGenerationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequestMapping("/api/invoices")
@@ -20,34 +40,112 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class InvoiceController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Part of every PDF/Excel ETag. Bump it whenever PdfGenerationService or
+     * ExcelGenerationService output changes, so browsers and proxies holding
+     * old documents download them again.
+     */
+    static final int DOCUMENT_LAYOUT_REVISION = 3;
+
+    private static final CacheControl DOCUMENT_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    // Invoices that may be listed by id in one merged PDF
+    static final int MAX_MERGED_INVOICES = 500;
+
     private final InvoiceService invoiceService;
     private final PdfGenerationService pdfGenerationService;
     private final ExcelGenerationService excelGenerationService;
+    private final InvoicePdfBundleService invoicePdfBundleService;
+    private final DocumentCache documentCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<InvoiceDTO> createInvoice(@RequestBody InvoiceDTO invoiceDTO) {
         InvoiceDTO created = invoiceService.createInvoice(invoiceDTO);
-        return ResponseEntity.ok(created);
+        return ResponseEntity.ok().eTag(EntityTags.of(created.getVersion())).body(created);
     }
 
+    /**
+     * Answers 304 when If-None-Match names the current version, without
+     * loading the invoice's items or writing a body. With {@code fields=}
+     * only those fields are read and returned.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<InvoiceDTO> getInvoice(@PathVariable Long id) {
+    public ResponseEntity<?> getInvoice(@PathVariable Long id,
+                                        @RequestParam(value = "fields", required = false) String fields,
+                                        WebRequest request) {
+        long version = invoiceService.getInvoiceVersion(id);
+        if (request.checkNotModified(EntityTags.of(version))) {
+            return null;
+        }
+        if (fields != null) {
+            return ResponseEntity.ok().eTag(EntityTags.of(version)).body(invoiceService.getInvoiceFields(id, fields));
+        }
         InvoiceDTO invoice = invoiceService.getInvoice(id);
-        return ResponseEntity.ok(invoice);
+        return ResponseEntity.ok().eTag(EntityTags.of(invoice.getVersion())).body(invoice);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<InvoiceDTO>> searchInvoices(
+    public ResponseEntity<List<?>> searchInvoices(
             @RequestParam(value = "invoiceNo", required = false) String invoiceNo,
-            @RequestParam(value = "lrNo", required = false) String lrNo) {
-        List<InvoiceDTO> invoices = invoiceService.searchInvoices(invoiceNo, lrNo);
-        return ResponseEntity.ok(invoices);
+            @RequestParam(value = "lrNo", required = false) String lrNo,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields) {
+        if (hasFields(fields, view)) {
+            return pageResponse(invoiceService.searchInvoiceFields(invoiceNo, lrNo, cursor, size, fields));
+        }
+        if (isSummaryView(view)) {
+            return pageResponse(invoiceService.searchInvoiceSummaries(invoiceNo, lrNo, cursor, size));
+        }
+        return pageResponse(invoiceService.searchInvoices(invoiceNo, lrNo, cursor, size));
     }
 
     @GetMapping
-    public ResponseEntity<List<InvoiceDTO>> getAllInvoices() {
-        List<InvoiceDTO> invoices = invoiceService.getAllInvoices();
-        return ResponseEntity.ok(invoices);
+    public ResponseEntity<List<?>> getAllInvoices(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields) {
+        if (hasFields(fields, view)) {
+            return pageResponse(invoiceService.searchInvoiceFields(null, null, cursor, size, fields));
+        }
+        if (isSummaryView(view)) {
+            return pageResponse(invoiceService.searchInvoiceSummaries(null, null, cursor, size));
+        }
+        return pageResponse(invoiceService.getInvoicePage(cursor, size));
+    }
+
+    /**
+     * Every invoice matching the optional filters as one JSON array, in list
+     * order. The array is written while it is read, so an export of any size
+     * needs about one chunk of memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(value = "invoiceNo", required = false) String invoiceNo,
+            @RequestParam(value = "lrNo", required = false) String lrNo,
+            @RequestParam(value = "view", required = false) String view) {
+        boolean summary = isSummaryView(view);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                // Spring flushes and closes the response stream itself
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                if (summary) {
+                    invoiceService.exportInvoiceSummaries(invoiceNo, lrNo, dto -> writeValue(generator, dto));
+                } else {
+                    invoiceService.exportInvoices(invoiceNo, lrNo, dto -> writeValue(generator, dto));
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/next-number")
@@ -56,39 +154,272 @@ public class InvoiceController {
         return ResponseEntity.ok(nextNumber);
     }
 
+    /**
+     * With If-Match, answers 412 unless the invoice still has that version.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<InvoiceDTO> updateInvoice(@PathVariable Long id, @RequestBody InvoiceDTO invoiceDTO) {
-        InvoiceDTO updated = invoiceService.updateInvoice(id, invoiceDTO);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<InvoiceDTO> updateInvoice(@PathVariable Long id, @RequestBody InvoiceDTO invoiceDTO,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        InvoiceDTO updated = invoiceService.updateInvoice(id, invoiceDTO, EntityTags.ifMatchVersion(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated);
     }
 
+    /**
+     * The invoice PDF, written to the response as it is rendered (or copied
+     * from the document cache), without a Content-Length.
+     */
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> getInvoicePdf(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> getInvoicePdf(@PathVariable Long id, WebRequest request) {
         Invoice invoice = invoiceService.getInvoiceEntity(id);
-        byte[] pdfBytes = pdfGenerationService.generateInvoicePdf(invoice);
+        if (isDocumentNotModified(invoice, request)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> documentCache.write(DocumentType.INVOICE_PDF, invoice.getId(),
+                invoice.getVersion(), stream -> pdfGenerationService.writeInvoicePdf(invoice, stream), out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.setContentDispositionFormData("inline", "invoice-" + invoice.getInvoiceNo() + ".pdf");
-        headers.setContentLength(pdfBytes.length);
+        setDocumentCacheHeaders(headers);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(pdfBytes);
+                .body(body);
     }
 
     @GetMapping("/{id}/excel")
-    public ResponseEntity<byte[]> getInvoiceExcel(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> getInvoiceExcel(@PathVariable Long id, WebRequest request) {
         Invoice invoice = invoiceService.getInvoiceEntity(id);
-        byte[] excelBytes = excelGenerationService.generateSingleInvoiceExcel(invoice);
+        if (isDocumentNotModified(invoice, request)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> documentCache.write(DocumentType.INVOICE_EXCEL, invoice.getId(),
+                invoice.getVersion(), stream -> excelGenerationService.writeSingleInvoiceExcel(invoice, stream), out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
         headers.setContentDispositionFormData("attachment", "invoice-" + invoice.getInvoiceNo() + ".xlsx");
-        headers.setContentLength(excelBytes.length);
+        setDocumentCacheHeaders(headers);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
 
+    /**
+     * The PDFs of the invoices dated from {@code from} to {@code to}
+     * (inclusive) and/or billed to {@code partyId}, oldest first, in one ZIP
+     * archive. Each PDF is written as soon as it and those before it are
+     * rendered, so the download starts right away.
+     */
+    @GetMapping("/pdf-bundle")
+    public ResponseEntity<StreamingResponseBody> getInvoicePdfBundle(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "partyId", required = false) Long partyId) {
+        checkDocumentSelection(from, to, partyId);
+        List<Long> ids = invoicePdfBundleService.findInvoiceIds(from, to, partyId);
+
+        StreamingResponseBody body = out -> {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            Set<String> entryNames = new HashSet<>();
+            invoicePdfBundleService.renderInvoicePdfs(ids, (invoice, pdf) -> {
+                String name = "invoice-" + fileNamePart(invoice) + ".pdf";
+                if (!entryNames.add(name)) {
+                    name = "invoice-" + fileNamePart(invoice) + "-" + invoice.getId() + ".pdf";
+                }
+                zip.putNextEntry(storedEntry(name, pdf));
+                zip.write(pdf);
+                zip.closeEntry();
+            });
+            // Ends the archive; Spring closes the response stream itself
+            zip.finish();
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", bundleName(from, to, partyId) + ".zip");
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * One PDF for printing: the invoices in {@code ids}, in that order, or
+     * else those selected by date range and party as for the PDF bundle. Each
+     * invoice keeps all its copies.
+     */
+    @GetMapping("/pdf-merged")
+    public ResponseEntity<StreamingResponseBody> getMergedInvoicePdf(
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "partyId", required = false) Long partyId) {
+        List<Long> invoiceIds;
+        String name;
+        if (ids != null && !ids.isEmpty()) {
+            if (ids.size() > MAX_MERGED_INVOICES) {
+                throw new IllegalArgumentException("At most " + MAX_MERGED_INVOICES + " ids may be given; " +
+                        "select larger sets by date range or party");
+            }
+            // Unknown ids would leave nothing to print only once the response had started
+            invoiceIds = invoicePdfBundleService.findExistingInvoiceIds(ids);
+            name = "invoices";
+        } else {
+            checkDocumentSelection(from, to, partyId);
+            invoiceIds = invoicePdfBundleService.findInvoiceIds(from, to, partyId);
+            name = bundleName(from, to, partyId);
+        }
+        if (invoiceIds.isEmpty()) {
+            // A PDF needs at least one page
+            throw new GlobalExceptionHandler.ResourceNotFoundException("No invoices match the selection");
+        }
+
+        StreamingResponseBody body = out -> invoicePdfBundleService.mergeInvoicePdfs(invoiceIds, out);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("inline", name + ".pdf");
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(excelBytes);
+                .body(body);
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bulk documents need a date range, a party or both, so a bare request
+     * cannot render every invoice ever written.
+     */
+    private void checkDocumentSelection(LocalDate from, LocalDate to, Long partyId) {
+        if (partyId == null && (from == null || to == null)) {
+            throw new IllegalArgumentException("Give a date range (from and to), a partyId, or both");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    private String bundleName(LocalDate from, LocalDate to, Long partyId) {
+        StringBuilder name = new StringBuilder("invoices");
+        if (from != null) {
+            name.append("-from-").append(from);
+        }
+        if (to != null) {
+            name.append("-to-").append(to);
+        }
+        if (partyId != null) {
+            name.append("-party-").append(partyId);
+        }
+        return name.toString();
+    }
+
+    /**
+     * The invoice number made safe for a file name inside an archive, where
+     * a slash (as in INV/2024-25/001) would start a directory.
+     */
+    private String fileNamePart(Invoice invoice) {
+        if (invoice.getInvoiceNo() == null || invoice.getInvoiceNo().isBlank()) {
+            return String.valueOf(invoice.getId());
+        }
+        return invoice.getInvoiceNo().replaceAll("[^A-Za-z0-9._-]", "-");
+    }
+
+    /**
+     * PDFs are compressed already, so they are stored in the archive as they are.
+     */
+    private ZipEntry storedEntry(String name, byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
+    /**
+     * Answers 304 from the invoice row alone: items are loaded lazily, so they
+     * are only read when the document has to be rendered.
+     */
+    private boolean isDocumentNotModified(Invoice invoice, WebRequest request) {
+        boolean notModified = request.checkNotModified(documentTag(invoice), lastModified(invoice));
+        if (notModified) {
+            ((ServletWebRequest) request).getResponse().setHeader(HttpHeaders.CACHE_CONTROL, DOCUMENT_CACHE_CONTROL.getHeaderValue());
+        }
+        return notModified;
+    }
+
+    /**
+     * Documents may be stored by browsers and shared proxies but must be
+     * revalidated on every use, which costs a 304 while the invoice is unchanged.
+     * The ETag and Last-Modified validators are already on the response, put
+     * there by {@link #isDocumentNotModified}; streamed bodies add entity
+     * headers to it rather than replacing them, so they are not repeated here.
+     */
+    private void setDocumentCacheHeaders(HttpHeaders headers) {
+        headers.setCacheControl(DOCUMENT_CACHE_CONTROL);
+    }
+
+    /**
+     * The copy labels come from configuration, so changing them changes no
+     * invoice's version; a hash of them is part of the tag instead.
+     */
+    private String documentTag(Invoice invoice) {
+        return "\"" + invoice.getVersion() + "-" + DOCUMENT_LAYOUT_REVISION + "-"
+                + Integer.toHexString(pdfGenerationService.getCopies().hashCode()) + "\"";
+    }
+
+    private long lastModified(Invoice invoice) {
+        if (invoice.getUpdatedAt() == null) {
+            return -1;
+        }
+        // HTTP dates have one-second precision
+        return invoice.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / 1000 * 1000;
+    }
+
+    /**
+     * {@code fields=} picks the fields itself, so it cannot be combined with a view.
+     */
+    private boolean hasFields(String fields, String view) {
+        if (fields == null) {
+            return false;
+        }
+        if (view != null && !view.isEmpty()) {
+            throw new IllegalArgumentException("Use either view or fields, not both");
+        }
+        return true;
+    }
+
+    /**
+     * {@code view=summary} returns only number, date, party and total per
+     * invoice; {@code view=full} (the default) includes every field and item.
+     */
+    private boolean isSummaryView(String view) {
+        if (view == null || view.isEmpty() || "full".equalsIgnoreCase(view)) {
+            return false;
+        }
+        if ("summary".equalsIgnoreCase(view)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown view: " + view + " (expected full or summary)");
+    }
+
+    /**
+     * Pages are returned as a plain JSON array; the continuation token for the
+     * next page, if any, travels in the {@value #NEXT_CURSOR_HEADER} header.
+     */
+    private ResponseEntity<List<?>> pageResponse(InvoicePageDTO<?> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getInvoices());
     }
 }
@@ -3,7 +3,7 @@ package com.invoice.app.controller;
 import com.invoice.app.entity.Invoice;
 import com.invoice.app.service.ExcelGenerationService;
 import com.invoice.app.service.InvoiceService;
-import com.invoice.app.service.PdfGenerationService;
+import com.invoice.app.service.StatementPdfService;
 import com.invoice.app.repository.InvoiceRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -11,7 +11,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -23,59 +25,61 @@ import java.util.List;
 public class ReportController {
 
     private final InvoiceRepository invoiceRepository;
-    private final PdfGenerationService pdfGenerationService;
+    private final StatementPdfService statementPdfService;
     private final ExcelGenerationService excelGenerationService;
 
+    /**
+     * Report documents are written to the response as they are rendered,
+     * without a Content-Length, so a report over a long period is never held
+     * in memory as a whole file.
+     */
     @GetMapping("/invoices/pdf")
-    public ResponseEntity<byte[]> getInvoiceReportPdf(
+    public ResponseEntity<StreamingResponseBody> getInvoiceReportPdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
-        List<Invoice> invoices = invoiceRepository.findByInvoiceDateBetween(startDate, endDate);
-        
         // Generate a simple PDF report (we can enhance this later)
-        byte[] pdfBytes = generateReportPdf(invoices, startDate, endDate);
+        StreamingResponseBody body = out -> writeReportPdf(startDate, endDate, out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         String filename = "invoice-report-" + startDate.format(DateTimeFormatter.ISO_DATE) + 
                          "-to-" + endDate.format(DateTimeFormatter.ISO_DATE) + ".pdf";
         headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(pdfBytes.length);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(pdfBytes);
+                .body(body);
     }
 
     @GetMapping("/invoices/excel")
-    public ResponseEntity<byte[]> getInvoiceReportExcel(
+    public ResponseEntity<StreamingResponseBody> getInvoiceReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
         List<Invoice> invoices = invoiceRepository.findByInvoiceDateBetween(startDate, endDate);
-        byte[] excelBytes = excelGenerationService.generateInvoiceReport(invoices);
+        StreamingResponseBody body = out -> excelGenerationService.writeInvoiceReport(invoices, out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
         String filename = "invoice-report-" + startDate.format(DateTimeFormatter.ISO_DATE) + 
                          "-to-" + endDate.format(DateTimeFormatter.ISO_DATE) + ".xlsx";
         headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(excelBytes.length);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(excelBytes);
+                .body(body);
     }
 
-    private byte[] generateReportPdf(List<Invoice> invoices, LocalDate startDate, LocalDate endDate) {
+    private void writeReportPdf(LocalDate startDate, LocalDate endDate, OutputStream out) {
         // For now, use the monthly statement generator with custom title
         // We can create a dedicated report generator if needed
         String periodTitle = startDate.format(DateTimeFormatter.ofPattern("dd-MMM-yyyy")) + 
                            " to " + endDate.format(DateTimeFormatter.ofPattern("dd-MMM-yyyy"));
-        return pdfGenerationService.generateMonthlyStatementPdf(invoices, 
-                                                                startDate.getYear(), 
-                                                                startDate.getMonthValue(), 
-                                                                periodTitle);
+        statementPdfService.writeStatementPdf(startDate,
+                                              endDate.plusDays(1),
+                                              startDate.getYear(),
+                                              periodTitle,
+                                              out);
     }
 }
@@ -1,20 +1,26 @@
 package com.invoice.app.controller;
 
 import com.invoice.app.dto.MonthlyStatementDTO;
-import com.invoice.app.entity.Invoice;
+import com.invoice.app.dto.InvoiceRangeVersion;
+import com.invoice.app.dto.MonthlyTotalsDTO;
 import com.invoice.app.repository.InvoiceRepository;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.DocumentCache.DocumentType;
+import com.invoice.app.service.InvoiceRollupService;
 import com.invoice.app.service.InvoiceService;
-import com.invoice.app.service.PdfGenerationService;
+import com.invoice.app.service.StatementPdfService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
 import java.time.format.TextStyle;
-import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/statements")
@@ -23,8 +29,10 @@ import java.util.Locale;
 public class StatementController {
 
     private final InvoiceService invoiceService;
+    private final InvoiceRollupService invoiceRollupService;
     private final InvoiceRepository invoiceRepository;
-    private final PdfGenerationService pdfGenerationService;
+    private final StatementPdfService statementPdfService;
+    private final DocumentCache documentCache;
 
     @GetMapping("/monthly")
     public ResponseEntity<MonthlyStatementDTO> getMonthlyStatement(
@@ -40,8 +48,35 @@ public class StatementController {
         return ResponseEntity.ok(statement);
     }
 
+    @GetMapping("/monthly/totals")
+    public ResponseEntity<MonthlyTotalsDTO> getMonthlyTotals(
+            @RequestParam(value = "year", required = false) Integer year,
+            @RequestParam(value = "month", required = false) Integer month) {
+
+        LocalDate now = LocalDate.now();
+        int y = year != null ? year : now.getYear();
+        int m = month != null ? month : now.getMonthValue();
+
+        return ResponseEntity.ok(invoiceRollupService.getMonthlyTotals(y, m));
+    }
+
+    /**
+     * Recomputes the monthly totals from the invoices table, e.g. after
+     * invoices were imported or edited directly in the database. Safe to call
+     * while invoices are being saved.
+     */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRollup() {
+        int rows = invoiceRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("rows", rows));
+    }
+
+    /**
+     * The statement PDF, written to the response as it is rendered (or
+     * copied from the document cache), without a Content-Length.
+     */
     @GetMapping("/monthly/pdf")
-    public ResponseEntity<byte[]> getMonthlyStatementPdf(
+    public ResponseEntity<StreamingResponseBody> getMonthlyStatementPdf(
             @RequestParam(value = "year", required = false) Integer year,
             @RequestParam(value = "month", required = false) Integer month) {
         
@@ -50,17 +85,20 @@ public class StatementController {
         int m = month != null ? month : now.getMonthValue();
 
         String monthName = Month.of(m).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
-        List<Invoice> invoices = invoiceRepository.findByYearAndMonth(y, m);
-        
-        byte[] pdfBytes = pdfGenerationService.generateMonthlyStatementPdf(invoices, y, m, monthName);
+        LocalDate start = LocalDate.of(y, m, 1);
+        InvoiceRangeVersion version = invoiceRepository.findVersionOfDateRange(start, start.plusMonths(1));
+
+        StreamingResponseBody body = out -> documentCache.write(DocumentType.MONTHLY_STATEMENT_PDF,
+                YearMonth.of(y, m), version,
+                stream -> statementPdfService.writeStatementPdf(start, start.plusMonths(1), y, monthName, stream),
+                out);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.setContentDispositionFormData("inline", "statement-" + monthName + "-" + y + ".pdf");
-        headers.setContentLength(pdfBytes.length);
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(pdfBytes);
+                .body(body);
     }
 }
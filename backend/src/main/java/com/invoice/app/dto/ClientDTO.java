@@ -14,4 +14,5 @@ public class ClientDTO {
     private String gstNumber;
     private String phone;
     private String email;
+    private Long version;
 }
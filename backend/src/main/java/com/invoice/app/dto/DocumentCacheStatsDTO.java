@@ -0,0 +1,18 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCacheStatsDTO {
+    private long documentCount;
+    private long residentBytes;
+    private long maxBytes;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long evictionCount;
+}
@@ -0,0 +1,43 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Seek position in the invoice listing, ordered by invoice date (newest first,
+ * undated invoices last) and then by id. Clients only ever see the opaque
+ * token produced by {@link #encode()}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceCursor {
+    private LocalDate invoiceDate;
+    private Long id;
+
+    public String encode() {
+        String raw = (invoiceDate != null ? invoiceDate.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static InvoiceCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            String date = raw.substring(0, separator);
+            return new InvoiceCursor(
+                    date.isEmpty() ? null : LocalDate.parse(date),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
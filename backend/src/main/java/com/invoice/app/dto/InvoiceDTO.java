@@ -24,4 +24,5 @@ public class InvoiceDTO {
     private String amountInWords;
     private String remarks;
     private List<InvoiceItemDTO> items;
+    private Long version;
 }
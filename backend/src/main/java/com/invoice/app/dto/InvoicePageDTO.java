@@ -0,0 +1,14 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoicePageDTO<T> {
+    private List<T> invoices;
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Identifies the content of the invoices dated in a range. Creating or
+ * editing an invoice in the range moves {@code lastUpdated} on; moving one out
+ * of the range lowers {@code invoiceCount}. Invoices are never deleted, so
+ * the pair never comes back to an earlier value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceRangeVersion {
+    private Long invoiceCount;
+    private LocalDateTime lastUpdated;
+}
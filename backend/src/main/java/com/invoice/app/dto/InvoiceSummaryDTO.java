@@ -0,0 +1,26 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns invoice list screens show, read with a constructor expression in
+ * {@link com.invoice.app.repository.InvoiceRepository#findSummariesByIdIn}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceSummaryDTO {
+    private Long id;
+    private String invoiceNo;
+    private String invoiceDate;
+    private String partyName;
+    private BigDecimal totalAmount;
+
+    public InvoiceSummaryDTO(Long id, String invoiceNo, LocalDate invoiceDate, String partyName, BigDecimal totalAmount) {
+        this(id, invoiceNo, invoiceDate != null ? invoiceDate.toString() : null, partyName, totalAmount);
+    }
+}
@@ -0,0 +1,22 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyTotalsDTO {
+    private int year;
+    private int month;
+    private String monthName;
+    private long totalInvoices;
+    private BigDecimal totalAmount;
+    private BigDecimal haltingCharges;
+    private BigDecimal loadingCharges;
+    private BigDecimal unloadingCharges;
+    private List<PartyTotalsDTO> parties;
+}
@@ -0,0 +1,18 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartyTotalsDTO {
+    private String partyName;
+    private long totalInvoices;
+    private BigDecimal totalAmount;
+    private BigDecimal haltingCharges;
+    private BigDecimal loadingCharges;
+    private BigDecimal unloadingCharges;
+}
@@ -0,0 +1,23 @@
+package com.invoice.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns of one row of a statement PDF, read without loading the invoice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLineDTO {
+    private Long id;
+    private String invoiceNo;
+    private LocalDate invoiceDate;
+    private String partyName;
+    private String partyAddress;
+    private String partyGst;
+    private BigDecimal totalAmount;
+}
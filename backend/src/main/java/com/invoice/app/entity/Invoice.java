@@ -4,20 +4,30 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+        // Serves keyset pagination, which seeks on (invoice_date, id)
+        @Index(name = "idx_invoices_date_id", columnList = "invoice_date, id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "invoices")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Invoice {
 
+    // Pooled sequence ids let Hibernate batch inserts; see IdSequenceInitializer
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_seq")
+    @SequenceGenerator(name = "invoices_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "invoice_no", nullable = false, unique = true)
@@ -57,7 +67,19 @@ public class Invoice {
     @Column(length = 1000)
     private String remarks;
 
+    // Served as the ETag; existing rows start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set on every save. Item edits alone leave the invoice row clean, so this
+    // is what makes them increment the version.
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "invoices_items")
     private List<InvoiceItem> items = new ArrayList<>();
 
     public void addItem(InvoiceItem item) {
@@ -0,0 +1,34 @@
+package com.invoice.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next unallocated invoice number for one prefix and, when numbering restarts
+ * every fiscal year, one fiscal year (empty otherwise). Backends reserve
+ * numbers from it in blocks; see {@link com.invoice.app.service.InvoiceNumberAllocator}.
+ */
+@Entity
+@Table(name = "invoice_number_sequences", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_invoice_number_sequences", columnNames = {"prefix", "fiscal_year"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceNumberSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String prefix;
+
+    @Column(name = "fiscal_year", nullable = false, length = 10)
+    private String fiscalYear;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
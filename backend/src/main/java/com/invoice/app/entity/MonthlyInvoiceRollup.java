@@ -0,0 +1,69 @@
+package com.invoice.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * Running invoice totals for one month, either for the whole month (party name
+ * {@link #MONTH_TOTAL}) or for a single party. Maintained by
+ * {@link com.invoice.app.service.InvoiceRollupService} as invoices are saved.
+ */
+@Entity
+@Table(name = "monthly_invoice_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_monthly_invoice_rollup", columnNames = {"rollup_year", "rollup_month", "party_name"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyInvoiceRollup {
+
+    public static final String MONTH_TOTAL = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_year", nullable = false)
+    private int year;
+
+    @Column(name = "rollup_month", nullable = false)
+    private int month;
+
+    @Column(name = "party_name", nullable = false)
+    private String partyName;
+
+    @Column(name = "invoice_count", nullable = false)
+    private long invoiceCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "halting_charges", nullable = false, precision = 15, scale = 2)
+    private BigDecimal haltingCharges = BigDecimal.ZERO;
+
+    @Column(name = "loading_charges", nullable = false, precision = 15, scale = 2)
+    private BigDecimal loadingCharges = BigDecimal.ZERO;
+
+    @Column(name = "unloading_charges", nullable = false, precision = 15, scale = 2)
+    private BigDecimal unloadingCharges = BigDecimal.ZERO;
+
+    public MonthlyInvoiceRollup(int year, int month, String partyName) {
+        this.year = year;
+        this.month = month;
+        this.partyName = partyName;
+    }
+
+    public MonthlyInvoiceRollup(Integer year, Integer month, String partyName, Long invoiceCount,
+                                BigDecimal totalAmount, BigDecimal haltingCharges,
+                                BigDecimal loadingCharges, BigDecimal unloadingCharges) {
+        this(year, month, partyName);
+        this.invoiceCount = invoiceCount;
+        this.totalAmount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+        this.haltingCharges = haltingCharges != null ? haltingCharges : BigDecimal.ZERO;
+        this.loadingCharges = loadingCharges != null ? loadingCharges : BigDecimal.ZERO;
+        this.unloadingCharges = unloadingCharges != null ? unloadingCharges : BigDecimal.ZERO;
+    }
+}
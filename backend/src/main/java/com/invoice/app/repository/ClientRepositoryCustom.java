@@ -0,0 +1,26 @@
+package com.invoice.app.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ClientRepositoryCustom {
+
+    /**
+     * Client fields that can be selected by name, with their attribute paths.
+     * The names are those of ClientDTO.
+     */
+    Map<String, String> FIELD_PATHS = Map.of(
+            "id", "id",
+            "name", "name",
+            "address", "address",
+            "gstNumber", "gstNumber",
+            "phone", "phone",
+            "email", "email",
+            "version", "version");
+
+    /**
+     * Reads only the named fields (keys of {@link #FIELD_PATHS}) of every
+     * client, one map per client, ordered by id.
+     */
+    List<Map<String, Object>> findAllFields(List<String> fields);
+}
@@ -0,0 +1,18 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.Client;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+
+class ClientRepositoryImpl implements ClientRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllFields(List<String> fields) {
+        return FieldProjection.select(entityManager, Client.class, FIELD_PATHS, fields, null);
+    }
+}
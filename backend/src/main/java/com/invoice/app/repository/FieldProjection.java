@@ -0,0 +1,73 @@
+package com.invoice.app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Tuple queries behind the {@code fields=} parameter of the read endpoints.
+ * Only the requested attributes are selected: other columns are not read and
+ * no entities are created.
+ */
+final class FieldProjection {
+
+    private FieldProjection() {
+    }
+
+    /**
+     * Selects {@code fields} from the {@code entityType} rows with the given
+     * ids, or from every row when {@code ids} is null, ordered by id.
+     * {@code paths} maps each field name to an attribute path such as
+     * {@code party.id}; a foreign key read this way needs no join. Rows come
+     * back as maps in field order, with dates as ISO strings as in the DTOs.
+     */
+    static List<Map<String, Object>> select(EntityManager entityManager, Class<?> entityType,
+                                            Map<String, String> paths, List<String> fields, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(path(root, paths.get(field)).alias(field));
+        }
+        query.multiselect(selections);
+        if (ids != null) {
+            query.where(root.get("id").in(ids));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(FieldProjection::toMap)
+                .collect(Collectors.toList());
+    }
+
+    private static Path<?> path(Root<?> root, String attributePath) {
+        Path<?> path = root;
+        for (String attribute : attributePath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            Object value = tuple.get(element);
+            row.put(element.getAlias(), value instanceof Temporal ? value.toString() : value);
+        }
+        return row;
+    }
+}
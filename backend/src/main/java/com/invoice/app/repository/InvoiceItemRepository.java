@@ -3,6 +3,7 @@ package com.invoice.app.repository;
 import com.invoice.app.entity.InvoiceItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -10,5 +11,7 @@ public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long>
 
     List<InvoiceItem> findByInvoiceId(Long invoiceId);
 
+    List<InvoiceItem> findByInvoiceIdInOrderById(Collection<Long> invoiceIds);
+
     List<InvoiceItem> findByLrNoContainingIgnoreCase(String lrNo);
 }
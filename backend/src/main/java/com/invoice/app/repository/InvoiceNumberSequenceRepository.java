@@ -0,0 +1,24 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.InvoiceNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceNumberSequenceRepository extends JpaRepository<InvoiceNumberSequence, Long> {
+
+    Optional<InvoiceNumberSequence> findByPrefixAndFiscalYear(String prefix, String fiscalYear);
+
+    /**
+     * Locks the sequence row (SELECT ... FOR UPDATE) until the calling
+     * transaction ends, so backends reserve blocks one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InvoiceNumberSequence s WHERE s.prefix = :prefix AND s.fiscalYear = :fiscalYear")
+    Optional<InvoiceNumberSequence> findForUpdate(@Param("prefix") String prefix, @Param("fiscalYear") String fiscalYear);
+}
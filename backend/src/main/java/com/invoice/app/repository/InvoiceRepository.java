@@ -1,34 +1,160 @@
 package com.invoice.app.repository;
 
+import com.invoice.app.dto.InvoiceCursor;
+import com.invoice.app.dto.InvoiceRangeVersion;
+import com.invoice.app.dto.InvoiceSummaryDTO;
+import com.invoice.app.dto.StatementLineDTO;
 import com.invoice.app.entity.Invoice;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceRepositoryCustom {
+
+    /**
+     * Substring filters for invoice and LR number search. Items are matched with an
+     * EXISTS semi-join so an invoice with several matching LRs is returned once
+     * without DISTINCT. On PostgreSQL both LIKE predicates are served by the pg_trgm
+     * GIN indexes from schema-postgresql.sql. Parameters must have LIKE wildcards
+     * escaped with a backslash.
+     */
+    String SEARCH_FILTER = "(:invoiceNo IS NULL OR i.invoiceNo LIKE CONCAT('%', :invoiceNo, '%') ESCAPE '\\') " +
+            "AND (:lrNo IS NULL OR EXISTS (SELECT 1 FROM InvoiceItem it WHERE it.invoice = i " +
+            "AND LOWER(it.lrNo) LIKE LOWER(CONCAT('%', :lrNo, '%')) ESCAPE '\\'))";
 
     Optional<Invoice> findByInvoiceNo(String invoiceNo);
 
     List<Invoice> findByInvoiceNoContainingIgnoreCase(String invoiceNo);
 
-    @Query(value = "SELECT DISTINCT i.* FROM invoices i LEFT JOIN invoice_items it ON i.id = it.invoice_id " +
-           "WHERE (:invoiceNo IS NULL OR i.invoice_no LIKE '%' || CAST(:invoiceNo AS TEXT) || '%') " +
-           "AND (:lrNo IS NULL OR LOWER(it.lr_no) LIKE LOWER('%' || CAST(:lrNo AS TEXT) || '%'))", 
-           nativeQuery = true)
-    List<Invoice> searchInvoices(@Param("invoiceNo") String invoiceNo, @Param("lrNo") String lrNo);
+    /**
+     * Loads the given invoices together with their line items in a single query.
+     */
+    @EntityGraph(attributePaths = "items")
+    List<Invoice> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Reads list-screen columns only; no Invoice or InvoiceItem entities are created.
+     */
+    @Query("SELECT new com.invoice.app.dto.InvoiceSummaryDTO(i.id, i.invoiceNo, i.invoiceDate, i.partyName, i.totalAmount) " +
+           "FROM Invoice i WHERE i.id IN :ids")
+    List<InvoiceSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination: dated invoices newest first, then undated invoices by id.
+    // Callers fetch the page keys here and load the invoices with findByIdIn
+    // or findSummariesByIdIn.
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE i.invoiceDate IS NOT NULL ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceCursor> findDatedPageKeys(Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE (i.invoiceDate < :invoiceDate OR (i.invoiceDate = :invoiceDate AND i.id < :id)) " +
+           "ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceCursor> findDatedPageKeysAfter(@Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE i.invoiceDate IS NULL AND i.id < :id ORDER BY i.id DESC")
+    List<InvoiceCursor> findUndatedPageKeysAfter(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE i.invoiceDate IS NOT NULL AND " + SEARCH_FILTER +
+           " ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceCursor> searchDatedPageKeys(@Param("invoiceNo") String invoiceNo, @Param("lrNo") String lrNo,
+                                            Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE (i.invoiceDate < :invoiceDate OR (i.invoiceDate = :invoiceDate AND i.id < :id)) " +
+           "AND " + SEARCH_FILTER +
+           " ORDER BY i.invoiceDate DESC, i.id DESC")
+    List<InvoiceCursor> searchDatedPageKeysAfter(@Param("invoiceNo") String invoiceNo, @Param("lrNo") String lrNo,
+                                                 @Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id,
+                                                 Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.InvoiceCursor(i.invoiceDate, i.id) FROM Invoice i " +
+           "WHERE i.invoiceDate IS NULL AND i.id < :id AND " + SEARCH_FILTER +
+           " ORDER BY i.id DESC")
+    List<InvoiceCursor> searchUndatedPageKeysAfter(@Param("invoiceNo") String invoiceNo, @Param("lrNo") String lrNo,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Loads invoices dated in the half-open range [startDate, endDateExclusive) with
+     * their items. The bare column comparison lets idx_invoices_invoice_date serve it.
+     */
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.items " +
+           "WHERE i.invoiceDate >= :startDate AND i.invoiceDate < :endDateExclusive " +
+           "ORDER BY i.invoiceDate, i.id")
+    List<Invoice> findByInvoiceDateRange(@Param("startDate") LocalDate startDate,
+                                         @Param("endDateExclusive") LocalDate endDateExclusive);
+
+    /**
+     * Count and latest save of the invoices dated in [startDate, endDateExclusive),
+     * identifying what a statement for the range would show.
+     */
+    @Query("SELECT new com.invoice.app.dto.InvoiceRangeVersion(COUNT(i), MAX(i.updatedAt)) FROM Invoice i " +
+           "WHERE i.invoiceDate >= :startDate AND i.invoiceDate < :endDateExclusive")
+    InvoiceRangeVersion findVersionOfDateRange(@Param("startDate") LocalDate startDate,
+                                               @Param("endDateExclusive") LocalDate endDateExclusive);
+
+    // Statement rows of the invoices dated in [startDate, endDateExclusive),
+    // oldest first, a page at a time by keyset on (invoiceDate, id).
+
+    @Query("SELECT new com.invoice.app.dto.StatementLineDTO(i.id, i.invoiceNo, i.invoiceDate, i.partyName, " +
+           "i.partyAddress, i.partyGst, i.totalAmount) FROM Invoice i " +
+           "WHERE i.invoiceDate >= :startDate AND i.invoiceDate < :endDateExclusive " +
+           "ORDER BY i.invoiceDate, i.id")
+    List<StatementLineDTO> findStatementLines(@Param("startDate") LocalDate startDate,
+                                              @Param("endDateExclusive") LocalDate endDateExclusive,
+                                              Pageable pageable);
+
+    @Query("SELECT new com.invoice.app.dto.StatementLineDTO(i.id, i.invoiceNo, i.invoiceDate, i.partyName, " +
+           "i.partyAddress, i.partyGst, i.totalAmount) FROM Invoice i " +
+           "WHERE (i.invoiceDate > :invoiceDate OR (i.invoiceDate = :invoiceDate AND i.id > :id)) " +
+           "AND i.invoiceDate < :endDateExclusive " +
+           "ORDER BY i.invoiceDate, i.id")
+    List<StatementLineDTO> findStatementLinesAfter(@Param("invoiceDate") LocalDate invoiceDate, @Param("id") Long id,
+                                                   @Param("endDateExclusive") LocalDate endDateExclusive,
+                                                   Pageable pageable);
+
+    default List<Invoice> findByInvoiceDateBetween(LocalDate startDate, LocalDate endDate) {
+        return findByInvoiceDateRange(startDate, endDate.plusDays(1));
+    }
+
+    default List<Invoice> findByYearAndMonth(int year, int month) {
+        LocalDate start = LocalDate.of(year, month, 1);
+        return findByInvoiceDateRange(start, start.plusMonths(1));
+    }
+
+    /**
+     * Ids of invoices dated in [startDate, endDateExclusive) and billed to the
+     * party, oldest first. Null arguments leave that end or the party open.
+     */
+    @Query("SELECT i.id FROM Invoice i " +
+           "WHERE (:startDate IS NULL OR i.invoiceDate >= :startDate) " +
+           "AND (:endDateExclusive IS NULL OR i.invoiceDate < :endDateExclusive) " +
+           "AND (:partyId IS NULL OR i.party.id = :partyId) " +
+           "ORDER BY i.invoiceDate, i.id")
+    List<Long> findIdsForDocuments(@Param("startDate") LocalDate startDate,
+                                   @Param("endDateExclusive") LocalDate endDateExclusive,
+                                   @Param("partyId") Long partyId);
 
-    @Query("SELECT i FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate ORDER BY i.invoiceDate")
-    List<Invoice> findByInvoiceDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    @Query("SELECT i.id FROM Invoice i WHERE i.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT i FROM Invoice i WHERE YEAR(i.invoiceDate) = :year AND MONTH(i.invoiceDate) = :month ORDER BY i.invoiceDate")
-    List<Invoice> findByYearAndMonth(@Param("year") int year, @Param("month") int month);
+    boolean existsByInvoiceNo(String invoiceNo);
 
-    @Query("SELECT i FROM Invoice i ORDER BY i.id DESC")
-    List<Invoice> findLatestInvoice(Pageable pageable);
+    /**
+     * Invoice numbers beginning with the prefix. Wildcards in the prefix are not
+     * escaped, so callers must still check each number themselves.
+     */
+    @Query("SELECT i.invoiceNo FROM Invoice i WHERE i.invoiceNo LIKE CONCAT(:prefix, '%')")
+    List<String> findInvoiceNumbersStartingWith(@Param("prefix") String prefix);
 }
@@ -0,0 +1,34 @@
+package com.invoice.app.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface InvoiceRepositoryCustom {
+
+    /**
+     * Invoice fields that can be selected by name, with their attribute paths.
+     * The names are those of InvoiceDTO; items are read separately.
+     */
+    Map<String, String> FIELD_PATHS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("invoiceNo", "invoiceNo"),
+            Map.entry("invoiceDate", "invoiceDate"),
+            Map.entry("partyId", "party.id"),
+            Map.entry("partyName", "partyName"),
+            Map.entry("partyAddress", "partyAddress"),
+            Map.entry("partyGst", "partyGst"),
+            Map.entry("haltingCharges", "haltingCharges"),
+            Map.entry("loadingCharges", "loadingCharges"),
+            Map.entry("unloadingCharges", "unloadingCharges"),
+            Map.entry("totalAmount", "totalAmount"),
+            Map.entry("amountInWords", "amountInWords"),
+            Map.entry("remarks", "remarks"),
+            Map.entry("version", "version"));
+
+    /**
+     * Reads only the named fields (keys of {@link #FIELD_PATHS}) of the given
+     * invoices, one map per invoice.
+     */
+    List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, List<String> fields);
+}
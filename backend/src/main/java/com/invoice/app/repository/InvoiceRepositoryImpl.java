@@ -0,0 +1,19 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.Invoice;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+class InvoiceRepositoryImpl implements InvoiceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, List<String> fields) {
+        return FieldProjection.select(entityManager, Invoice.class, FIELD_PATHS, fields, ids);
+    }
+}
@@ -0,0 +1,80 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.MonthlyInvoiceRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyInvoiceRollupRepository extends JpaRepository<MonthlyInvoiceRollup, Long>,
+        MonthlyInvoiceRollupRepositoryCustom {
+
+    Optional<MonthlyInvoiceRollup> findByYearAndMonthAndPartyName(int year, int month, String partyName);
+
+    @Query("SELECT r FROM MonthlyInvoiceRollup r WHERE r.year = :year AND r.month = :month " +
+           "AND r.partyName <> '' AND r.invoiceCount > 0 ORDER BY r.totalAmount DESC, r.partyName")
+    List<MonthlyInvoiceRollup> findPartyRollups(@Param("year") int year, @Param("month") int month);
+
+    List<MonthlyInvoiceRollup> findByYearAndMonth(int year, int month);
+
+    /**
+     * Locks the row until the caller's transaction ends. Saves to the month
+     * update its total row first, so locking that row holds them off.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM MonthlyInvoiceRollup r WHERE r.year = :year AND r.month = :month " +
+           "AND r.partyName = :partyName")
+    Optional<MonthlyInvoiceRollup> findForUpdate(@Param("year") int year, @Param("month") int month,
+                                                 @Param("partyName") String partyName);
+
+    // Months as year * 100 + month
+    @Query("SELECT DISTINCT YEAR(i.invoiceDate) * 100 + MONTH(i.invoiceDate) FROM Invoice i " +
+           "WHERE i.invoiceDate IS NOT NULL")
+    List<Integer> findInvoiceMonths();
+
+    @Query("SELECT DISTINCT r.year * 100 + r.month FROM MonthlyInvoiceRollup r")
+    List<Integer> findRollupMonths();
+
+    /**
+     * Sums the invoices dated in [startDate, endDateExclusive) per party name.
+     * Used to rebuild the rollup of a month; unnamed parties come back with an
+     * empty party name.
+     */
+    @Query("SELECT new com.invoice.app.entity.MonthlyInvoiceRollup(YEAR(i.invoiceDate), MONTH(i.invoiceDate), " +
+           "COALESCE(TRIM(i.partyName), ''), COUNT(i), SUM(i.totalAmount), SUM(i.haltingCharges), " +
+           "SUM(i.loadingCharges), SUM(i.unloadingCharges)) " +
+           "FROM Invoice i WHERE i.invoiceDate >= :startDate AND i.invoiceDate < :endDateExclusive " +
+           "GROUP BY YEAR(i.invoiceDate), MONTH(i.invoiceDate), COALESCE(TRIM(i.partyName), '')")
+    List<MonthlyInvoiceRollup> sumInvoicesByParty(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDateExclusive") LocalDate endDateExclusive);
+
+    /**
+     * Adds the deltas to an existing row in a single statement, so concurrent
+     * invoice saves never overwrite each other's totals.
+     *
+     * @return the number of rows updated; 0 when the row does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE MonthlyInvoiceRollup r SET r.invoiceCount = r.invoiceCount + :invoiceCount, " +
+           "r.totalAmount = r.totalAmount + :totalAmount, " +
+           "r.haltingCharges = r.haltingCharges + :haltingCharges, " +
+           "r.loadingCharges = r.loadingCharges + :loadingCharges, " +
+           "r.unloadingCharges = r.unloadingCharges + :unloadingCharges " +
+           "WHERE r.year = :year AND r.month = :month AND r.partyName = :partyName")
+    int increment(@Param("year") int year,
+                  @Param("month") int month,
+                  @Param("partyName") String partyName,
+                  @Param("invoiceCount") long invoiceCount,
+                  @Param("totalAmount") BigDecimal totalAmount,
+                  @Param("haltingCharges") BigDecimal haltingCharges,
+                  @Param("loadingCharges") BigDecimal loadingCharges,
+                  @Param("unloadingCharges") BigDecimal unloadingCharges);
+}
@@ -0,0 +1,11 @@
+package com.invoice.app.repository;
+
+public interface MonthlyInvoiceRollupRepositoryCustom {
+
+    /**
+     * Inserts an empty rollup row unless one exists for the month and party,
+     * in a single statement of the caller's transaction. A concurrent save
+     * creating the same row is waited for rather than failing on the unique key.
+     */
+    void insertIfAbsent(int year, int month, String partyName);
+}
@@ -0,0 +1,52 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.MonthlyInvoiceRollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+
+class MonthlyInvoiceRollupRepositoryImpl implements MonthlyInvoiceRollupRepositoryCustom {
+
+    private static final String COLUMNS = "(rollup_year, rollup_month, party_name, invoice_count, total_amount, " +
+            "halting_charges, loading_charges, unloading_charges)";
+
+    private static final String EMPTY_ROW = "(:year, :month, :partyName, 0, 0, 0, 0, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertIfAbsent(int year, int month, String partyName) {
+        entityManager.createNativeQuery(insertIfAbsentSql())
+                .unwrap(NativeQuery.class)
+                // Otherwise Hibernate evicts every second-level cache region
+                .addSynchronizedEntityClass(MonthlyInvoiceRollup.class)
+                .setParameter("year", year)
+                .setParameter("month", month)
+                .setParameter("partyName", partyName)
+                .executeUpdate();
+    }
+
+    private String insertIfAbsentSql() {
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            return "INSERT INTO monthly_invoice_rollup " + COLUMNS + " VALUES " + EMPTY_ROW +
+                    " ON CONFLICT DO NOTHING";
+        }
+        if (dialect instanceof MySQLDialect) {
+            return "INSERT INTO monthly_invoice_rollup " + COLUMNS + " VALUES " + EMPTY_ROW +
+                    " ON DUPLICATE KEY UPDATE id = id";
+        }
+        // H2 and other databases with standard MERGE
+        return "MERGE INTO monthly_invoice_rollup r " +
+                "USING (SELECT CAST(:year AS INTEGER) y, CAST(:month AS INTEGER) m, " +
+                "CAST(:partyName AS VARCHAR(255)) p) s " +
+                "ON r.rollup_year = s.y AND r.rollup_month = s.m AND r.party_name = s.p " +
+                "WHEN NOT MATCHED THEN INSERT " + COLUMNS + " VALUES (s.y, s.m, s.p, 0, 0, 0, 0, 0)";
+    }
+}
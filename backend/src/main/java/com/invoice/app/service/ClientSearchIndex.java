@@ -0,0 +1,276 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.ClientDTO;
+import com.invoice.app.entity.Client;
+import com.invoice.app.repository.ClientRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index serving client autocomplete without touching the database.
+ *
+ * Queries of three or more characters are answered from a trigram index over
+ * name, address and GST number, with the same substring semantics as a
+ * {@code LIKE '%q%'} search. Shorter queries have too few trigrams to narrow
+ * the search down and are checked against every client instead, with the same
+ * semantics. Results are ranked so that name matches come before address and
+ * GST matches.
+ *
+ * The index is loaded at startup and kept current by {@link ClientService}.
+ * Clients created or edited by another backend instance are picked up by
+ * {@link #refresh()} every {@code invoice.clients.search-refresh}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ClientRepository clientRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+
+    @PostConstruct
+    public void load() {
+        List<Client> clients = clientRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            trigrams.clear();
+            for (Client client : clients) {
+                add(new Entry(ClientService.toDTO(client)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the clients whose version in the database differs from the
+     * indexed one, which covers clients created or edited elsewhere. Only ids
+     * and versions are read for the comparison.
+     */
+    @Scheduled(fixedDelayString = "${invoice.clients.search-refresh:PT1M}",
+            initialDelayString = "${invoice.clients.search-refresh:PT1M}")
+    public void refresh() {
+        List<Map<String, Object>> versions = clientRepository.findAllFields(List.of("id", "version"));
+        List<Long> stale = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map<String, Object> row : versions) {
+                Entry entry = entries.get((Long) row.get("id"));
+                if (entry == null || !row.get("version").equals(entry.client.getVersion())) {
+                    stale.add((Long) row.get("id"));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        List<Client> clients = clientRepository.findAllById(stale);
+        lock.writeLock().lock();
+        try {
+            for (Client client : clients) {
+                replace(new Entry(ClientService.toDTO(client)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the client to the index, replacing any previous version of it.
+     */
+    public void put(ClientDTO client) {
+        Entry entry = new Entry(client);
+        lock.writeLock().lock();
+        try {
+            replace(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ClientDTO> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = q.length() >= GRAM ? trigramCandidates(q) : entries.keySet();
+
+            // Keep the best `limit` matches; the head of the queue is the worst one kept
+            Comparator<Match> ranking = Comparator.comparingInt(Match::rank)
+                    .thenComparingInt(match -> match.entry.name.length())
+                    .thenComparing(match -> match.entry.name)
+                    .thenComparing(match -> match.entry.client.getId());
+            PriorityQueue<Match> best = new PriorityQueue<>(ranking.reversed());
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                int rank = entry.rank(q);
+                if (rank < 0) {
+                    continue;
+                }
+                best.add(new Match(entry, rank));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(ranking);
+            List<ClientDTO> results = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                results.add(match.entry.client);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> trigramCandidates(String q) {
+        // Every trigram of the query must occur in a matching field, so intersect
+        // the posting lists starting from the smallest one.
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(q)) {
+            Set<Long> posting = trigrams.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    private void replace(Entry entry) {
+        Entry previous = entries.get(entry.client.getId());
+        if (previous != null) {
+            // A refresh may have read the client before a newer local edit was indexed
+            if (isNewer(previous.client.getVersion(), entry.client.getVersion())) {
+                return;
+            }
+            remove(previous);
+        }
+        add(entry);
+    }
+
+    private static boolean isNewer(Long version, Long than) {
+        return version != null && than != null && version > than;
+    }
+
+    private void add(Entry entry) {
+        Long id = entry.client.getId();
+        entries.put(id, entry);
+        for (String gram : entry.fieldGrams()) {
+            trigrams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(Entry entry) {
+        Long id = entry.client.getId();
+        entries.remove(id);
+        for (String gram : entry.fieldGrams()) {
+            removePosting(trigrams, gram, id);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long id) {
+        Set<Long> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private record Match(Entry entry, int rank) {
+    }
+
+    private static final class Entry {
+        private final ClientDTO client;
+        private final String name;
+        private final String address;
+        private final String gstNumber;
+
+        private Entry(ClientDTO client) {
+            this.client = client;
+            this.name = normalize(client.getName());
+            this.address = normalize(client.getAddress());
+            this.gstNumber = normalize(client.getGstNumber());
+        }
+
+        private Set<String> fieldGrams() {
+            Set<String> grams = grams(name);
+            grams.addAll(grams(address));
+            grams.addAll(grams(gstNumber));
+            return grams;
+        }
+
+        /**
+         * Lower is better; -1 means the query does not match this client.
+         */
+        private int rank(String q) {
+            if (name.equals(q)) {
+                return 0;
+            }
+            if (name.startsWith(q)) {
+                return 1;
+            }
+            int index = name.indexOf(q);
+            if (index > 0 && !Character.isLetterOrDigit(name.charAt(index - 1))) {
+                return 2;
+            }
+            if (index > 0) {
+                return 3;
+            }
+            if (gstNumber.contains(q)) {
+                return 4;
+            }
+            if (address.contains(q)) {
+                return 5;
+            }
+            return -1;
+        }
+    }
+}
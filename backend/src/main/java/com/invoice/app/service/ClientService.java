@@ -7,7 +7,10 @@ import com.invoice.app.repository.ClientRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,30 +18,38 @@ import java.util.stream.Collectors;
 public class ClientService {
 
     private final ClientRepository clientRepository;
+    private final ClientSearchIndex clientSearchIndex;
 
-    @Transactional(readOnly = true)
     public List<ClientDTO> searchClients(String query, int limit) {
         if (query == null || query.trim().isEmpty()) {
             return List.of();
         }
-        return clientRepository.searchClients(query.trim())
-                .stream()
-                .limit(limit)
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return clientSearchIndex.search(query.trim(), limit);
     }
 
     @Transactional
     public ClientDTO createClient(ClientDTO dto) {
         Client client = toEntity(dto);
         Client saved = clientRepository.save(client);
-        return toDTO(saved);
+        ClientDTO created = toDTO(saved);
+        indexAfterCommit(created);
+        return created;
     }
 
     @Transactional(readOnly = true)
     public ClientDTO getClient(Long id) {
         return clientRepository.findById(id)
-                .map(this::toDTO)
+                .map(ClientService::toDTO)
+                .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Client not found: " + id));
+    }
+
+    /**
+     * The client's current version, the value served as its ETag.
+     */
+    @Transactional(readOnly = true)
+    public long getClientVersion(Long id) {
+        return clientRepository.findById(id)
+                .map(Client::getVersion)
                 .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Client not found: " + id));
     }
 
@@ -46,14 +57,36 @@ public class ClientService {
     public List<ClientDTO> getAllClients() {
         return clientRepository.findAll()
                 .stream()
-                .map(this::toDTO)
+                .map(ClientService::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every client with only the comma-separated {@code fields} (ClientDTO
+     * names), reading just those columns.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllClientFields(String fields) {
+        return clientRepository.findAllFields(FieldSelection.parse(fields, ClientRepository.FIELD_PATHS.keySet()));
+    }
+
     @Transactional
     public ClientDTO updateClient(Long id, ClientDTO dto) {
+        return updateClient(id, dto, null);
+    }
+
+    /**
+     * Updates the client only if it still has {@code expectedVersion}; pass
+     * null to update whatever the current version is.
+     */
+    @Transactional
+    public ClientDTO updateClient(Long id, ClientDTO dto, Long expectedVersion) {
         Client existing = clientRepository.findById(id)
                 .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Client not found: " + id));
+        if (expectedVersion != null && expectedVersion != existing.getVersion()) {
+            throw new GlobalExceptionHandler.PreconditionFailedException(
+                    "Client " + id + " has been changed since version " + expectedVersion);
+        }
         
         existing.setName(dto.getName());
         existing.setAddress(dto.getAddress());
@@ -61,18 +94,35 @@ public class ClientService {
         existing.setPhone(dto.getPhone());
         existing.setEmail(dto.getEmail());
         
-        Client saved = clientRepository.save(existing);
-        return toDTO(saved);
+        // Flush so the returned DTO carries the incremented version
+        Client saved = clientRepository.saveAndFlush(existing);
+        ClientDTO updated = toDTO(saved);
+        indexAfterCommit(updated);
+        return updated;
+    }
+
+    private void indexAfterCommit(ClientDTO client) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clientSearchIndex.put(client);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clientSearchIndex.put(client);
+            }
+        });
     }
 
-    private ClientDTO toDTO(Client client) {
+    static ClientDTO toDTO(Client client) {
         return new ClientDTO(
                 client.getId(),
                 client.getName(),
                 client.getAddress(),
                 client.getGstNumber(),
                 client.getPhone(),
-                client.getEmail()
+                client.getEmail(),
+                client.getVersion()
         );
     }
 
@@ -0,0 +1,179 @@
+package com.invoice.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.invoice.app.dto.DocumentCacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Objects;
+
+/**
+ * Rendered PDF and Excel documents, kept in memory so repeated downloads of
+ * an unchanged invoice or statement are not rendered again.
+ *
+ * Entries are keyed by document type, the id of what was rendered and its
+ * content version, so a changed invoice or month is never served from an old
+ * rendering. The cache is bounded by the total size of the documents it holds
+ * ({@code invoice.documents.cache-size}, 0 to turn it off). When it is full,
+ * the documents asked for least recently and least often are evicted first.
+ * Invalidating only frees the memory of documents that can no longer be
+ * asked for.
+ */
+@Service
+public class DocumentCache {
+
+    public enum DocumentType {
+        INVOICE_PDF,
+        INVOICE_EXCEL,
+        MONTHLY_STATEMENT_PDF
+    }
+
+    private record Key(DocumentType type, Object id, Object version) {
+    }
+
+    // Largest document kept, as a fraction of the cache size
+    private static final int MAX_DOCUMENT_SHARE = 8;
+
+    private final long maxBytes;
+    private final Cache<Key, byte[]> documents;
+
+    public DocumentCache(@Value("${invoice.documents.cache-size:32MB}") DataSize maxSize) {
+        this.maxBytes = maxSize.toBytes();
+        this.documents = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Key, byte[]>weigher((key, document) -> document.length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Renders a document into the stream it is given. The stream must be
+     * left open.
+     */
+    @FunctionalInterface
+    public interface DocumentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes the document of {@code type} for {@code id} at {@code version}
+     * to {@code out}: from memory when it is cached, otherwise rendered with
+     * {@code render} straight into {@code out} and kept for next time.
+     * Documents larger than an eighth of the cache are streamed without being
+     * kept, so one large statement cannot push out everything else.
+     */
+    public void write(DocumentType type, Object id, Object version, DocumentWriter render,
+                      OutputStream out) throws IOException {
+        if (maxBytes <= 0) {
+            render.write(out);
+            return;
+        }
+        Key key = new Key(type, id, version);
+        byte[] cached = documents.getIfPresent(key);
+        if (cached != null) {
+            out.write(cached);
+            return;
+        }
+        CopyingOutputStream copying = new CopyingOutputStream(out, maxBytes / MAX_DOCUMENT_SHARE);
+        render.write(copying);
+        byte[] document = copying.copy();
+        if (document != null) {
+            documents.put(key, document);
+        }
+    }
+
+    /**
+     * Drops the PDF and Excel documents of the invoice, at any version.
+     */
+    public void invalidateInvoice(Long invoiceId) {
+        invalidate(DocumentType.INVOICE_PDF, invoiceId);
+        invalidate(DocumentType.INVOICE_EXCEL, invoiceId);
+    }
+
+    /**
+     * Drops the monthly statement of the month {@code invoiceDate} falls in.
+     * Does nothing for undated invoices, which are on no statement.
+     */
+    public void invalidateStatement(LocalDate invoiceDate) {
+        if (invoiceDate != null) {
+            invalidate(DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.from(invoiceDate));
+        }
+    }
+
+    public void invalidateAll() {
+        documents.invalidateAll();
+    }
+
+    /**
+     * Hit, miss and eviction counts since startup, and the number and total
+     * size of the documents held now.
+     */
+    public DocumentCacheStatsDTO getStatistics() {
+        documents.cleanUp();
+        CacheStats stats = documents.stats();
+        long residentBytes = documents.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+        return new DocumentCacheStatsDTO(documents.estimatedSize(), residentBytes, Math.max(maxBytes, 0),
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    private void invalidate(DocumentType type, Object id) {
+        documents.asMap().keySet().removeIf(key -> key.type() == type && Objects.equals(key.id(), id));
+    }
+
+    /**
+     * Passes everything through to the response and keeps a copy, until the
+     * copy would grow past {@code limit}.
+     */
+    private static class CopyingOutputStream extends FilterOutputStream {
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CopyingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy(b, off, len);
+        }
+
+        // The response stream belongs to the caller
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        byte[] copy() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + len > limit) {
+                copy = null;
+            } else {
+                copy.write(b, off, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.CacheRegionStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports on and clears the Hibernate second-level cache that holds clients,
+ * invoices and invoice items (see application.conf for the region bounds).
+ *
+ * Updates made through JPA keep the cache current. Rows changed directly in
+ * the database stay stale until they expire; clear the cache after such edits.
+ */
+@Service
+@RequiredArgsConstructor
+public class EntityCacheService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Hit, miss and put counts per region since startup. All counts are zero
+     * unless hibernate.generate_statistics is enabled.
+     */
+    public List<CacheRegionStatsDTO> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> {
+                    CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+                    return new CacheRegionStatsDTO(region, stats.getHitCount(), stats.getMissCount(),
+                            stats.getPutCount());
+                })
+                .collect(Collectors.toList());
+    }
+
+    public void evictAll() {
+        entityManagerFactory.getCache().evictAll();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -20,7 +21,21 @@ public class ExcelGenerationService {
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
     public byte[] generateInvoiceReport(List<Invoice> invoices) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            writeInvoiceReport(invoices, baos);
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating Excel report", e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Writes the report workbook, as {@link #generateInvoiceReport}, to
+     * {@code out}. {@code out} is left open.
+     */
+    public void writeInvoiceReport(List<Invoice> invoices, OutputStream out) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Invoice Report");
 
             // Create header style
@@ -143,11 +158,7 @@ public class ExcelGenerationService {
                 sheet.autoSizeColumn(i);
             }
 
-            workbook.write(baos);
-            return baos.toByteArray();
-
-        } catch (IOException e) {
-            throw new RuntimeException("Error generating Excel report", e);
+            workbook.write(out);
         }
     }
 
@@ -159,7 +170,21 @@ public class ExcelGenerationService {
      * Generate Excel file for a single invoice
      */
     public byte[] generateSingleInvoiceExcel(Invoice invoice) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            writeSingleInvoiceExcel(invoice, baos);
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating invoice Excel", e);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Writes the invoice workbook, as {@link #generateSingleInvoiceExcel}, to
+     * {@code out}. {@code out} is left open.
+     */
+    public void writeSingleInvoiceExcel(Invoice invoice, OutputStream out) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Invoice " + nullSafe(invoice.getInvoiceNo()));
 
             // Create styles
@@ -383,11 +408,7 @@ public class ExcelGenerationService {
                 sheet.autoSizeColumn(i);
             }
 
-            workbook.write(baos);
-            return baos.toByteArray();
-
-        } catch (IOException e) {
-            throw new RuntimeException("Error generating invoice Excel", e);
+            workbook.write(out);
         }
     }
 }
@@ -0,0 +1,37 @@
+package com.invoice.app.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Parses the {@code fields=} parameter of the read endpoints.
+ */
+final class FieldSelection {
+
+    private FieldSelection() {
+    }
+
+    /**
+     * The comma-separated field names in {@code fields}, in the order given,
+     * without repeats and always starting with {@code id}. Unknown names are
+     * rejected, so a typo is reported instead of silently returning less.
+     */
+    static List<String> parse(String fields, Set<String> known) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + " (expected any of " + new TreeSet<>(known) + ")");
+            }
+            selected.add(name);
+        }
+        return new ArrayList<>(selected);
+    }
+}
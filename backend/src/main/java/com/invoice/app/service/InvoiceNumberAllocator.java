@@ -0,0 +1,218 @@
+package com.invoice.app.service;
+
+import com.invoice.app.entity.InvoiceNumberSequence;
+import com.invoice.app.repository.InvoiceNumberSequenceRepository;
+import com.invoice.app.repository.InvoiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out invoice numbers such as {@code INV001}, or {@code INV/2024-25/001}
+ * when numbering restarts every fiscal year.
+ *
+ * Each backend reserves a block of numbers at a time from the
+ * invoice_number_sequences row for the prefix, locking the row while it does,
+ * so several backends never hand out the same number. Numbers left in a block
+ * when a backend stops are skipped; set {@code invoice.numbering.block-size=1}
+ * where gaps matter more than the extra round trip per invoice.
+ */
+@Component
+public class InvoiceNumberAllocator {
+
+    private final InvoiceNumberSequenceRepository sequenceRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final TransactionTemplate reserveTransaction;
+
+    private final String prefix;
+    private final int width;
+    private final int blockSize;
+    private final boolean fiscalYearReset;
+    private final int fiscalYearStartMonth;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Queue<Block>> blocks = new HashMap<>();
+
+    public InvoiceNumberAllocator(InvoiceNumberSequenceRepository sequenceRepository,
+                                  InvoiceRepository invoiceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${invoice.numbering.prefix:INV}") String prefix,
+                                  @Value("${invoice.numbering.width:3}") int width,
+                                  @Value("${invoice.numbering.block-size:10}") int blockSize,
+                                  @Value("${invoice.numbering.fiscal-year-reset:false}") boolean fiscalYearReset,
+                                  @Value("${invoice.numbering.fiscal-year-start-month:4}") int fiscalYearStartMonth) {
+        this.sequenceRepository = sequenceRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.prefix = prefix;
+        this.width = width;
+        this.blockSize = Math.max(1, blockSize);
+        this.fiscalYearReset = fiscalYearReset;
+        this.fiscalYearStartMonth = fiscalYearStartMonth;
+    }
+
+    /**
+     * Allocates the next number for an invoice dated {@code invoiceDate}. The
+     * number is reserved even if the invoice is never saved.
+     *
+     * Must be called outside a transaction: a block is reserved in a
+     * transaction of its own, which needs a connection of its own. The lock is
+     * not held while that happens. Clerks who run out at the same moment each
+     * reserve a block, and every block is used up, lowest numbers first.
+     */
+    public String next(LocalDate invoiceDate) {
+        String fiscalYear = fiscalYear(invoiceDate);
+        while (true) {
+            lock.lock();
+            try {
+                String number = takeNumber(fiscalYear);
+                if (number != null) {
+                    return number;
+                }
+            } finally {
+                lock.unlock();
+            }
+            Block reserved = reserve(fiscalYear);
+            lock.lock();
+            try {
+                blocks.computeIfAbsent(fiscalYear, year -> new PriorityQueue<>()).add(reserved);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The number the next invoice dated {@code invoiceDate} would get from this
+     * backend, without allocating it. Another clerk may still take it first.
+     */
+    public String peek(LocalDate invoiceDate) {
+        String fiscalYear = fiscalYear(invoiceDate);
+        lock.lock();
+        try {
+            Block block = currentBlock(fiscalYear);
+            if (block != null) {
+                return format(fiscalYear, block.next);
+            }
+        } finally {
+            lock.unlock();
+        }
+        long nextValue = sequenceRepository.findByPrefixAndFiscalYear(prefix, fiscalYear)
+                .map(InvoiceNumberSequence::getNextValue)
+                .orElseGet(() -> highestExistingNumber(fiscalYear) + 1);
+        return format(fiscalYear, nextValue);
+    }
+
+    // Callers hold the lock
+
+    private String takeNumber(String fiscalYear) {
+        Block block = currentBlock(fiscalYear);
+        return block != null ? format(fiscalYear, block.next++) : null;
+    }
+
+    /**
+     * The reserved block with the lowest numbers left, dropping used-up ones.
+     */
+    private Block currentBlock(String fiscalYear) {
+        Queue<Block> reserved = blocks.get(fiscalYear);
+        if (reserved == null) {
+            return null;
+        }
+        while (!reserved.isEmpty() && reserved.peek().next >= reserved.peek().end) {
+            reserved.poll();
+        }
+        return reserved.peek();
+    }
+
+    private Block reserve(String fiscalYear) {
+        try {
+            return reserveTransaction.execute(status -> reserveBlock(fiscalYear));
+        } catch (DataIntegrityViolationException e) {
+            // Another backend created the sequence row first; reserve from it
+            return reserveTransaction.execute(status -> reserveBlock(fiscalYear));
+        }
+    }
+
+    private Block reserveBlock(String fiscalYear) {
+        InvoiceNumberSequence sequence = sequenceRepository.findForUpdate(prefix, fiscalYear)
+                .orElseGet(() -> createSequence(fiscalYear));
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        sequenceRepository.save(sequence);
+        return new Block(start, start + blockSize);
+    }
+
+    /**
+     * Starts a new sequence after the highest number already in use, so
+     * invoices numbered before the sequence existed are not handed out again.
+     */
+    private InvoiceNumberSequence createSequence(String fiscalYear) {
+        InvoiceNumberSequence sequence = new InvoiceNumberSequence(null, prefix, fiscalYear,
+                highestExistingNumber(fiscalYear) + 1);
+        return sequenceRepository.saveAndFlush(sequence);
+    }
+
+    private long highestExistingNumber(String fiscalYear) {
+        String numberPrefix = numberPrefix(fiscalYear);
+        Pattern pattern = Pattern.compile(Pattern.quote(numberPrefix) + "(\\d{1,18})");
+        long highest = 0;
+        for (String invoiceNo : invoiceRepository.findInvoiceNumbersStartingWith(numberPrefix)) {
+            Matcher matcher = pattern.matcher(invoiceNo);
+            if (matcher.matches()) {
+                highest = Math.max(highest, Long.parseLong(matcher.group(1)));
+            }
+        }
+        return highest;
+    }
+
+    private String format(String fiscalYear, long value) {
+        return numberPrefix(fiscalYear) + String.format("%0" + width + "d", value);
+    }
+
+    private String numberPrefix(String fiscalYear) {
+        return fiscalYear.isEmpty() ? prefix : prefix + "/" + fiscalYear + "/";
+    }
+
+    /**
+     * Fiscal year label such as {@code 2024-25}, or empty when numbering does
+     * not restart each year.
+     */
+    private String fiscalYear(LocalDate invoiceDate) {
+        if (!fiscalYearReset) {
+            return "";
+        }
+        LocalDate date = invoiceDate != null ? invoiceDate : LocalDate.now();
+        int startYear = date.getMonthValue() >= fiscalYearStartMonth ? date.getYear() : date.getYear() - 1;
+        if (fiscalYearStartMonth == 1) {
+            return String.valueOf(startYear);
+        }
+        return startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+    }
+
+    private static final class Block implements Comparable<Block> {
+        private long next;
+        private final long end;
+
+        private Block(long next, long end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public int compareTo(Block other) {
+            return Long.compare(next, other.next);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.invoice.app.service;
+
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.repository.InvoiceRepository;
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSmartCopy;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders the invoice PDFs for bulk downloads.
+ *
+ * Invoices are read a chunk at a time, each chunk in its own read-only
+ * transaction, and rendered on a fixed pool of threads
+ * ({@code invoice.documents.render-threads}, one per core by default).
+ * Rendering runs at most two documents per thread ahead of the one being
+ * handed out. The first PDF is therefore ready almost at once, and memory use
+ * does not grow with the size of the bundle.
+ */
+@Service
+public class InvoicePdfBundleService {
+
+    // Invoices read per transaction, with their items
+    static final int LOAD_CHUNK_SIZE = 50;
+
+    private final InvoiceRepository invoiceRepository;
+    private final PdfGenerationService pdfGenerationService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+    private final ExecutorService renderExecutor;
+    private final int renderAhead;
+
+    public InvoicePdfBundleService(InvoiceRepository invoiceRepository,
+                                   PdfGenerationService pdfGenerationService,
+                                   EntityManager entityManager,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${invoice.documents.render-threads:0}") int renderThreads) {
+        this.invoiceRepository = invoiceRepository;
+        this.pdfGenerationService = pdfGenerationService;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("invoice-pdf-");
+        threadFactory.setDaemon(true);
+        this.renderExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+        this.renderAhead = threads * 2;
+    }
+
+    /**
+     * Receives each rendered PDF, in the order the invoice ids were given.
+     */
+    @FunctionalInterface
+    public interface PdfConsumer {
+        void accept(Invoice invoice, byte[] pdf) throws IOException;
+    }
+
+    /**
+     * Ids of the invoices dated from {@code from} to {@code to} (both
+     * inclusive, either may be null for an open end) and billed to
+     * {@code partyId} if given, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findInvoiceIds(LocalDate from, LocalDate to, Long partyId) {
+        return invoiceRepository.findIdsForDocuments(from, to != null ? to.plusDays(1) : null, partyId);
+    }
+
+    /**
+     * The ids in {@code ids} that belong to an invoice, in the order given.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findExistingInvoiceIds(List<Long> ids) {
+        Set<Long> existing = new HashSet<>(invoiceRepository.findExistingIds(ids));
+        return ids.stream()
+                .filter(existing::contains)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Renders the PDF of every invoice in {@code ids} and passes them to
+     * {@code consumer} in that order. Ids of invoices deleted in the meantime
+     * are skipped. If rendering or the consumer fails, documents still being
+     * rendered are cancelled.
+     */
+    public void renderInvoicePdfs(List<Long> ids, PdfConsumer consumer) throws IOException {
+        Deque<RenderedPdf> pending = new ArrayDeque<>();
+        try {
+            for (int start = 0; start < ids.size(); start += LOAD_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + LOAD_CHUNK_SIZE));
+                for (Invoice invoice : loadInvoices(chunk)) {
+                    if (pending.size() >= renderAhead) {
+                        writeNext(pending, consumer);
+                    }
+                    pending.add(new RenderedPdf(invoice,
+                            renderExecutor.submit(() -> pdfGenerationService.generateInvoicePdf(invoice))));
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeNext(pending, consumer);
+            }
+        } finally {
+            pending.forEach(rendered -> rendered.pdf.cancel(true));
+        }
+    }
+
+    /**
+     * Writes the invoices in {@code ids}, in that order and each with all its
+     * copies, to {@code out} as one PDF. Pages are copied in as each invoice
+     * is rendered. Fonts and other resources the documents share are written
+     * once, so the result is smaller than the separate files put together.
+     * {@code out} is left open.
+     */
+    public void mergeInvoicePdfs(List<Long> ids, OutputStream out) throws IOException {
+        Document document = new Document();
+        PdfSmartCopy copy = new PdfSmartCopy(document, out);
+        copy.setCloseStream(false);
+        copy.setFullCompression();
+        document.open();
+        renderInvoicePdfs(ids, (invoice, pdf) -> {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                copy.freeReader(reader);
+            } finally {
+                reader.close();
+            }
+        });
+        document.close();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Loads the invoices with their items, in the order of {@code ids}. The
+     * persistence context is cleared afterwards, so the invoices are detached
+     * and safe to hand to the render threads.
+     */
+    private List<Invoice> loadInvoices(List<Long> ids) {
+        Map<Long, Invoice> byId = readTransaction.execute(status -> invoiceRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity())));
+        // Open-in-view keeps one persistence context for the whole request
+        entityManager.clear();
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private void writeNext(Deque<RenderedPdf> pending, PdfConsumer consumer) throws IOException {
+        RenderedPdf next = pending.poll();
+        consumer.accept(next.invoice, await(next.pdf));
+    }
+
+    private byte[] await(Future<byte[]> pdf) {
+        try {
+            return pdf.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering invoice PDFs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to render invoice PDF", e.getCause());
+        }
+    }
+
+    private static class RenderedPdf {
+        private final Invoice invoice;
+        private final Future<byte[]> pdf;
+
+        RenderedPdf(Invoice invoice, Future<byte[]> pdf) {
+            this.invoice = invoice;
+            this.pdf = pdf;
+        }
+    }
+}
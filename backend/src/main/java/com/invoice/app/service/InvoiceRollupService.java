@@ -0,0 +1,230 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.MonthlyTotalsDTO;
+import com.invoice.app.dto.PartyTotalsDTO;
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.MonthlyInvoiceRollup;
+import com.invoice.app.repository.MonthlyInvoiceRollupRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the monthly_invoice_rollup table in step with the invoices table, so
+ * the monthly totals ({@code GET /api/statements/monthly/totals}) are read
+ * from one row per month and party instead of summing every invoice.
+ *
+ * Changes are applied as deltas in the caller's transaction: an invoice save
+ * that rolls back takes its rollup change with it. Undated invoices belong to
+ * no month and are left out.
+ */
+@Service
+public class InvoiceRollupService implements SmartInitializingSingleton {
+
+    private final MonthlyInvoiceRollupRepository rollupRepository;
+    private final TransactionTemplate monthTransaction;
+
+    public InvoiceRollupService(MonthlyInvoiceRollupRepository rollupRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.monthTransaction = new TransactionTemplate(transactionManager);
+        // Each month is summed after its total row is locked and must see
+        // the saves committed up to then
+        this.monthTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * The invoice values counted by the rollup. Taken before an update so the
+     * old values can be subtracted once the entity has been changed.
+     */
+    public record Contribution(LocalDate invoiceDate, String partyName, BigDecimal totalAmount,
+                               BigDecimal haltingCharges, BigDecimal loadingCharges,
+                               BigDecimal unloadingCharges) {
+
+        public static Contribution of(Invoice invoice) {
+            return new Contribution(invoice.getInvoiceDate(), invoice.getPartyName(), invoice.getTotalAmount(),
+                    invoice.getHaltingCharges(), invoice.getLoadingCharges(), invoice.getUnloadingCharges());
+        }
+    }
+
+    @Transactional
+    public void recordCreated(Invoice invoice) {
+        apply(Contribution.of(invoice), 1);
+    }
+
+    @Transactional
+    public void recordUpdated(Contribution before, Invoice invoice) {
+        Contribution after = Contribution.of(invoice);
+        if (!before.equals(after)) {
+            apply(before, -1);
+            apply(after, 1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public MonthlyInvoiceRollup getMonthTotal(int year, int month) {
+        return rollupRepository.findByYearAndMonthAndPartyName(year, month, MonthlyInvoiceRollup.MONTH_TOTAL)
+                .orElseGet(() -> new MonthlyInvoiceRollup(year, month, MonthlyInvoiceRollup.MONTH_TOTAL));
+    }
+
+    @Transactional(readOnly = true)
+    public MonthlyTotalsDTO getMonthlyTotals(int year, int month) {
+        String monthName = Month.of(month).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        MonthlyInvoiceRollup total = getMonthTotal(year, month);
+
+        List<PartyTotalsDTO> parties = rollupRepository.findPartyRollups(year, month).stream()
+                .map(party -> new PartyTotalsDTO(
+                        party.getPartyName(),
+                        party.getInvoiceCount(),
+                        party.getTotalAmount(),
+                        party.getHaltingCharges(),
+                        party.getLoadingCharges(),
+                        party.getUnloadingCharges()))
+                .collect(Collectors.toList());
+
+        return new MonthlyTotalsDTO(
+                year,
+                month,
+                monthName,
+                total.getInvoiceCount(),
+                total.getTotalAmount(),
+                total.getHaltingCharges(),
+                total.getLoadingCharges(),
+                total.getUnloadingCharges(),
+                parties
+        );
+    }
+
+    /**
+     * Recomputes every rollup row from the invoices table, one month per
+     * transaction, and may run while invoices are being saved. Each month's
+     * total row is locked before its invoices are summed. A save to the month
+     * that is already under way finishes first and is counted; one that comes
+     * later waits and adds its delta to the rebuilt rows. Backends rebuilding
+     * at the same time take turns on each month.
+     *
+     * @return the number of rollup rows written
+     */
+    public int rebuild() {
+        Set<YearMonth> months = new TreeSet<>();
+        for (List<Integer> found : List.of(rollupRepository.findInvoiceMonths(), rollupRepository.findRollupMonths())) {
+            found.forEach(month -> months.add(YearMonth.of(month / 100, month % 100)));
+        }
+        int rows = 0;
+        for (YearMonth month : months) {
+            rows += monthTransaction.execute(status -> rebuildMonth(month));
+        }
+        return rows;
+    }
+
+    /**
+     * Fills the rollup table on first start against a database that already
+     * has invoices. Runs once all beans exist and before the web server takes
+     * requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (rollupRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private int rebuildMonth(YearMonth month) {
+        int year = month.getYear();
+        int monthValue = month.getMonthValue();
+        rollupRepository.insertIfAbsent(year, monthValue, MonthlyInvoiceRollup.MONTH_TOTAL);
+        MonthlyInvoiceRollup total = rollupRepository.findForUpdate(year, monthValue, MonthlyInvoiceRollup.MONTH_TOTAL)
+                .orElseThrow();
+
+        Map<String, MonthlyInvoiceRollup> parties = new HashMap<>();
+        MonthlyInvoiceRollup sum = new MonthlyInvoiceRollup(year, monthValue, MonthlyInvoiceRollup.MONTH_TOTAL);
+        for (MonthlyInvoiceRollup party : rollupRepository.sumInvoicesByParty(month.atDay(1),
+                month.plusMonths(1).atDay(1))) {
+            sum.setInvoiceCount(sum.getInvoiceCount() + party.getInvoiceCount());
+            sum.setTotalAmount(sum.getTotalAmount().add(party.getTotalAmount()));
+            sum.setHaltingCharges(sum.getHaltingCharges().add(party.getHaltingCharges()));
+            sum.setLoadingCharges(sum.getLoadingCharges().add(party.getLoadingCharges()));
+            sum.setUnloadingCharges(sum.getUnloadingCharges().add(party.getUnloadingCharges()));
+            // Invoices without a party name only count towards the month total
+            if (!party.getPartyName().isEmpty()) {
+                parties.put(party.getPartyName(), party);
+            }
+        }
+        copyTotals(sum, total);
+
+        int rows = 1;
+        for (MonthlyInvoiceRollup row : rollupRepository.findByYearAndMonth(year, monthValue)) {
+            if (row.getPartyName().equals(MonthlyInvoiceRollup.MONTH_TOTAL)) {
+                continue;
+            }
+            MonthlyInvoiceRollup party = parties.remove(row.getPartyName());
+            if (party == null) {
+                rollupRepository.delete(row);
+            } else {
+                copyTotals(party, row);
+                rows++;
+            }
+        }
+        rollupRepository.saveAll(parties.values());
+        return rows + parties.size();
+    }
+
+    private void copyTotals(MonthlyInvoiceRollup from, MonthlyInvoiceRollup to) {
+        to.setInvoiceCount(from.getInvoiceCount());
+        to.setTotalAmount(from.getTotalAmount());
+        to.setHaltingCharges(from.getHaltingCharges());
+        to.setLoadingCharges(from.getLoadingCharges());
+        to.setUnloadingCharges(from.getUnloadingCharges());
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution.invoiceDate() == null) {
+            return;
+        }
+        int year = contribution.invoiceDate().getYear();
+        int month = contribution.invoiceDate().getMonthValue();
+
+        increment(year, month, MonthlyInvoiceRollup.MONTH_TOTAL, contribution, sign);
+        String partyName = contribution.partyName() != null ? contribution.partyName().trim() : "";
+        if (!partyName.isEmpty()) {
+            increment(year, month, partyName, contribution, sign);
+        }
+    }
+
+    private void increment(int year, int month, String partyName, Contribution contribution, int sign) {
+        if (incrementRow(year, month, partyName, contribution, sign) == 0) {
+            rollupRepository.insertIfAbsent(year, month, partyName);
+            incrementRow(year, month, partyName, contribution, sign);
+        }
+    }
+
+    private int incrementRow(int year, int month, String partyName, Contribution contribution, int sign) {
+        return rollupRepository.increment(year, month, partyName, sign,
+                signed(contribution.totalAmount(), sign),
+                signed(contribution.haltingCharges(), sign),
+                signed(contribution.loadingCharges(), sign),
+                signed(contribution.unloadingCharges(), sign));
+    }
+
+    private BigDecimal signed(BigDecimal value, int sign) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return sign < 0 ? value.negate() : value;
+    }
+}
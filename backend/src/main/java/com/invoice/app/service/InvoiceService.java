@@ -1,38 +1,77 @@
 package com.invoice.app.service;
 
 import com.invoice.app.config.GlobalExceptionHandler;
+import com.invoice.app.dto.InvoiceCursor;
 import com.invoice.app.dto.InvoiceDTO;
 import com.invoice.app.dto.InvoiceItemDTO;
+import com.invoice.app.dto.InvoicePageDTO;
+import com.invoice.app.dto.InvoiceSummaryDTO;
 import com.invoice.app.dto.MonthlyStatementDTO;
 import com.invoice.app.entity.Client;
 import com.invoice.app.entity.Invoice;
 import com.invoice.app.entity.InvoiceItem;
 import com.invoice.app.repository.ClientRepository;
+import com.invoice.app.repository.InvoiceItemRepository;
 import com.invoice.app.repository.InvoiceRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class InvoiceService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+    // Invoices read per transaction by the export methods
+    static final int EXPORT_CHUNK_SIZE = MAX_PAGE_SIZE;
+    // Selectable with fields=, besides the invoice columns
+    static final String ITEMS_FIELD = "items";
+
     private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository invoiceItemRepository;
     private final ClientRepository clientRepository;
+    private final InvoiceRollupService invoiceRollupService;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final DocumentCache documentCache;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
 
-    @Transactional
+    /**
+     * Saves a new invoice. A blank {@code invoiceNo} is assigned the next
+     * number before the save's transaction starts: reserving a block of
+     * numbers commits on a connection of its own, and must not wait for one
+     * while this save already holds another.
+     */
     public InvoiceDTO createInvoice(InvoiceDTO dto) {
         Invoice invoice = toEntity(dto);
-        
+        if (invoice.getInvoiceNo() == null || invoice.getInvoiceNo().trim().isEmpty()) {
+            invoice.setInvoiceNo(allocateInvoiceNumber(invoice.getInvoiceDate()));
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> saveNewInvoice(invoice, dto));
+    }
+
+    private InvoiceDTO saveNewInvoice(Invoice invoice, InvoiceDTO dto) {
         // Link party if partyId is provided
         if (dto.getPartyId() != null) {
             Client party = clientRepository.findById(dto.getPartyId()).orElse(null);
@@ -47,7 +86,10 @@ public class InvoiceService {
             }
         }
 
+        invoice.setUpdatedAt(LocalDateTime.now());
         Invoice saved = invoiceRepository.save(invoice);
+        invoiceRollupService.recordCreated(saved);
+        documentCache.invalidateStatement(saved.getInvoiceDate());
         return toDTO(saved);
     }
 
@@ -58,6 +100,17 @@ public class InvoiceService {
                 .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Invoice not found: " + id));
     }
 
+    /**
+     * The invoice's current version, the value served as its ETag. Read from
+     * the entity cache when possible, without loading items.
+     */
+    @Transactional(readOnly = true)
+    public long getInvoiceVersion(Long id) {
+        return invoiceRepository.findById(id)
+                .map(Invoice::getVersion)
+                .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Invoice not found: " + id));
+    }
+
     @Transactional(readOnly = true)
     public Invoice getInvoiceEntity(Long id) {
         return invoiceRepository.findById(id)
@@ -65,65 +118,150 @@ public class InvoiceService {
     }
 
     @Transactional(readOnly = true)
-    public List<InvoiceDTO> searchInvoices(String invoiceNo, String lrNo) {
-        List<Invoice> invoices;
-        
-        if ((invoiceNo == null || invoiceNo.trim().isEmpty()) && 
-            (lrNo == null || lrNo.trim().isEmpty())) {
-            // Return recent invoices if no search criteria
-            invoices = invoiceRepository.findAll();
-        } else {
-            invoices = invoiceRepository.searchInvoices(
-                invoiceNo != null && !invoiceNo.trim().isEmpty() ? invoiceNo.trim() : null,
-                lrNo != null && !lrNo.trim().isEmpty() ? lrNo.trim() : null
-            );
-        }
-        
-        return invoices.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public InvoicePageDTO<InvoiceDTO> searchInvoices(String invoiceNo, String lrNo, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        return toPage(pageKeys(invoiceNo, lrNo, cursor, pageSize + 1), pageSize, this::loadInvoices);
     }
 
     @Transactional(readOnly = true)
-    public List<InvoiceDTO> getAllInvoices() {
-        return invoiceRepository.findAll()
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public InvoicePageDTO<InvoiceDTO> getInvoicePage(String cursor, Integer size) {
+        return searchInvoices(null, null, cursor, size);
     }
 
+    /**
+     * Same paging and filters as {@link #searchInvoices}, but returns only the
+     * columns list screens show, read without loading invoice entities or items.
+     */
     @Transactional(readOnly = true)
-    public String getNextInvoiceNumber() {
-        List<Invoice> latestInvoices = invoiceRepository.findLatestInvoice(PageRequest.of(0, 1));
-        
-        if (latestInvoices.isEmpty()) {
-            return "INV001";
+    public InvoicePageDTO<InvoiceSummaryDTO> searchInvoiceSummaries(String invoiceNo, String lrNo, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        return toPage(pageKeys(invoiceNo, lrNo, cursor, pageSize + 1), pageSize, this::loadSummaries);
+    }
+
+    /**
+     * Same paging and filters as {@link #searchInvoices}, but returns only the
+     * comma-separated {@code fields} of each invoice (InvoiceDTO names, plus
+     * {@code items}). Only those columns are read, and items only when asked for.
+     */
+    @Transactional(readOnly = true)
+    public InvoicePageDTO<Map<String, Object>> searchInvoiceFields(String invoiceNo, String lrNo, String cursor,
+                                                                   Integer size, String fields) {
+        List<String> selected = FieldSelection.parse(fields, selectableInvoiceFields());
+        int pageSize = pageSize(size);
+        return toPage(pageKeys(invoiceNo, lrNo, cursor, pageSize + 1), pageSize, ids -> loadFields(ids, selected));
+    }
+
+    /**
+     * {@link #getInvoice} limited to {@code fields}, as for {@link #searchInvoiceFields}.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getInvoiceFields(Long id, String fields) {
+        List<String> selected = FieldSelection.parse(fields, selectableInvoiceFields());
+        Map<String, Object> invoice = loadFields(List.of(id), selected).get(id);
+        if (invoice == null) {
+            throw new GlobalExceptionHandler.ResourceNotFoundException("Invoice not found: " + id);
         }
-        
-        Invoice invoice = latestInvoices.get(0);
-        String lastInvoiceNo = invoice.getInvoiceNo();
-        try {
-            // Extract prefix and numeric part
-            String numericPart = lastInvoiceNo.replaceAll("[^0-9]", "");
-            String prefix = lastInvoiceNo.replaceAll("[0-9]", "");
-            
-            if (!numericPart.isEmpty()) {
-                int nextNumber = Integer.parseInt(numericPart) + 1;
-                // Preserve leading zeros by maintaining the same length
-                int numLength = numericPart.length();
-                String format = "%0" + numLength + "d";
-                return prefix + String.format(format, nextNumber);
-            }
-        } catch (NumberFormatException e) {
-            // If parsing fails, return default
+        return invoice;
+    }
+
+    /**
+     * Passes every invoice matching the filters to {@code action}, in the same
+     * order as {@link #searchInvoices}. Invoices are read a chunk at a time,
+     * each chunk in its own read-only transaction, and the persistence context
+     * is cleared after every chunk. Memory use therefore does not grow with the
+     * number of matches, and no connection is held while {@code action} writes
+     * to a slow client.
+     */
+    public void exportInvoices(String invoiceNo, String lrNo, Consumer<InvoiceDTO> action) {
+        export(invoiceNo, lrNo, this::loadInvoices, action);
+    }
+
+    /**
+     * {@link #exportInvoices} for the summary columns only.
+     */
+    public void exportInvoiceSummaries(String invoiceNo, String lrNo, Consumer<InvoiceSummaryDTO> action) {
+        export(invoiceNo, lrNo, this::loadSummaries, action);
+    }
+
+    private <T> void export(String invoiceNo, String lrNo, Function<List<Long>, Map<Long, T>> loader,
+                            Consumer<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+
+        String cursor = null;
+        do {
+            String after = cursor;
+            InvoicePageDTO<T> chunk = template.execute(status ->
+                    toPage(pageKeys(invoiceNo, lrNo, after, EXPORT_CHUNK_SIZE + 1), EXPORT_CHUNK_SIZE, loader));
+            // Open-in-view keeps one persistence context for the whole request
+            entityManager.clear();
+            chunk.getInvoices().forEach(action);
+            cursor = chunk.getNextCursor();
+        } while (cursor != null);
+    }
+
+    /**
+     * Fetches up to {@code limit} page keys after the cursor, newest first with
+     * undated invoices last. Blank criteria match every invoice.
+     */
+    private List<InvoiceCursor> pageKeys(String invoiceNo, String lrNo, String cursor, int limit) {
+        String invoiceNoFilter = invoiceNo != null && !invoiceNo.trim().isEmpty() ? escapeLike(invoiceNo.trim()) : null;
+        String lrNoFilter = lrNo != null && !lrNo.trim().isEmpty() ? escapeLike(lrNo.trim()) : null;
+        boolean filtered = invoiceNoFilter != null || lrNoFilter != null;
+
+        InvoiceCursor after = cursor != null && !cursor.isEmpty() ? InvoiceCursor.decode(cursor) : null;
+        List<InvoiceCursor> keys = new ArrayList<>();
+        Long undatedAfterId = Long.MAX_VALUE;
+
+        if (after == null) {
+            keys.addAll(filtered
+                    ? invoiceRepository.searchDatedPageKeys(invoiceNoFilter, lrNoFilter, PageRequest.of(0, limit))
+                    : invoiceRepository.findDatedPageKeys(PageRequest.of(0, limit)));
+        } else if (after.getInvoiceDate() != null) {
+            keys.addAll(filtered
+                    ? invoiceRepository.searchDatedPageKeysAfter(invoiceNoFilter, lrNoFilter,
+                            after.getInvoiceDate(), after.getId(), PageRequest.of(0, limit))
+                    : invoiceRepository.findDatedPageKeysAfter(
+                            after.getInvoiceDate(), after.getId(), PageRequest.of(0, limit)));
+        } else {
+            undatedAfterId = after.getId();
+        }
+        if (keys.size() < limit) {
+            PageRequest rest = PageRequest.of(0, limit - keys.size());
+            keys.addAll(filtered
+                    ? invoiceRepository.searchUndatedPageKeysAfter(invoiceNoFilter, lrNoFilter, undatedAfterId, rest)
+                    : invoiceRepository.findUndatedPageKeysAfter(undatedAfterId, rest));
         }
-        return "INV001";
+        return keys;
+    }
+
+    /**
+     * Previews the number the next new invoice will get. The number is only
+     * assigned when the invoice is created without one.
+     */
+    @Transactional(readOnly = true)
+    public String getNextInvoiceNumber() {
+        return invoiceNumberAllocator.peek(LocalDate.now());
     }
 
     @Transactional
     public InvoiceDTO updateInvoice(Long id, InvoiceDTO dto) {
+        return updateInvoice(id, dto, null);
+    }
+
+    /**
+     * Updates the invoice only if it still has {@code expectedVersion}; pass
+     * null to update whatever the current version is.
+     */
+    @Transactional
+    public InvoiceDTO updateInvoice(Long id, InvoiceDTO dto, Long expectedVersion) {
         Invoice existing = invoiceRepository.findById(id)
                 .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Invoice not found: " + id));
+        if (expectedVersion != null && expectedVersion != existing.getVersion()) {
+            throw new GlobalExceptionHandler.PreconditionFailedException(
+                    "Invoice " + id + " has been changed since version " + expectedVersion);
+        }
+        InvoiceRollupService.Contribution before = InvoiceRollupService.Contribution.of(existing);
         
         // Update fields
         existing.setInvoiceNo(dto.getInvoiceNo());
@@ -148,16 +286,16 @@ public class InvoiceService {
         existing.setAmountInWords(dto.getAmountInWords());
         existing.setRemarks(dto.getRemarks());
         
-        // Update items - clear and re-add
-        existing.getItems().clear();
-        if (dto.getItems() != null) {
-            for (InvoiceItemDTO itemDTO : dto.getItems()) {
-                InvoiceItem item = toItemEntity(itemDTO);
-                existing.addItem(item);
-            }
-        }
-        
-        Invoice saved = invoiceRepository.save(existing);
+        updateItems(existing, dto.getItems());
+        existing.setUpdatedAt(LocalDateTime.now());
+
+        // Flush so the returned DTO carries the incremented version
+        Invoice saved = invoiceRepository.saveAndFlush(existing);
+        invoiceRollupService.recordUpdated(before, saved);
+        // Renderings of the old version can no longer be asked for
+        documentCache.invalidateInvoice(id);
+        documentCache.invalidateStatement(before.invoiceDate());
+        documentCache.invalidateStatement(saved.getInvoiceDate());
         return toDTO(saved);
     }
 
@@ -169,9 +307,10 @@ public class InvoiceService {
                 .map(this::toDTO)
                 .collect(Collectors.toList());
 
+        // Summed from the invoices listed, so the header always agrees with them
         BigDecimal totalAmount = invoices.stream()
                 .map(Invoice::getTotalAmount)
-                .filter(amt -> amt != null)
+                .filter(Objects::nonNull)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         String monthName = Month.of(month).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
@@ -187,6 +326,115 @@ public class InvoiceService {
         return statement;
     }
 
+    /**
+     * Matches incoming items to the invoice's items by id: matched rows are
+     * updated in place (and only written if a field changed), items without a
+     * known id are inserted and items no longer sent are deleted.
+     */
+    private void updateItems(Invoice invoice, List<InvoiceItemDTO> itemDTOs) {
+        // Keyed by id: the entities' Lombok hashCode walks invoice <-> items
+        Map<Long, InvoiceItem> currentItems = new HashMap<>();
+        for (InvoiceItem item : invoice.getItems()) {
+            currentItems.put(item.getId(), item);
+        }
+
+        Set<Long> keptIds = new HashSet<>();
+        List<InvoiceItem> newItems = new ArrayList<>();
+        if (itemDTOs != null) {
+            for (InvoiceItemDTO itemDTO : itemDTOs) {
+                InvoiceItem item = itemDTO.getId() != null ? currentItems.get(itemDTO.getId()) : null;
+                if (item != null && keptIds.add(item.getId())) {
+                    copyItemFields(itemDTO, item);
+                } else {
+                    newItems.add(toItemEntity(itemDTO));
+                }
+            }
+        }
+
+        invoice.getItems().removeIf(item -> !keptIds.contains(item.getId()));
+        for (InvoiceItem item : newItems) {
+            invoice.addItem(item);
+        }
+    }
+
+    private String allocateInvoiceNumber(LocalDate invoiceDate) {
+        // Skip numbers already taken by invoices numbered by hand
+        String invoiceNo = invoiceNumberAllocator.next(invoiceDate);
+        while (invoiceRepository.existsByInvoiceNo(invoiceNo)) {
+            invoiceNo = invoiceNumberAllocator.next(invoiceDate);
+        }
+        return invoiceNo;
+    }
+
+    /**
+     * Escapes LIKE wildcards so user input is matched literally by the search queries.
+     */
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Builds a page from keys fetched one past the page size; the extra key only
+     * signals that another page exists.
+     */
+    private <T> InvoicePageDTO<T> toPage(List<InvoiceCursor> keys, int pageSize,
+                                         Function<List<Long>, Map<Long, T>> loader) {
+        boolean hasMore = keys.size() > pageSize;
+        List<InvoiceCursor> pageKeys = hasMore ? keys.subList(0, pageSize) : keys;
+        if (pageKeys.isEmpty()) {
+            return new InvoicePageDTO<>(new ArrayList<>(), null);
+        }
+
+        List<Long> ids = pageKeys.stream().map(InvoiceCursor::getId).collect(Collectors.toList());
+        Map<Long, T> byId = loader.apply(ids);
+
+        List<T> invoices = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? pageKeys.get(pageKeys.size() - 1).encode() : null;
+        return new InvoicePageDTO<>(invoices, nextCursor);
+    }
+
+    private Map<Long, InvoiceDTO> loadInvoices(List<Long> ids) {
+        return invoiceRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Invoice::getId, this::toDTO));
+    }
+
+    private Map<Long, Map<String, Object>> loadFields(List<Long> ids, List<String> fields) {
+        List<String> columns = fields.stream()
+                .filter(field -> !ITEMS_FIELD.equals(field))
+                .collect(Collectors.toList());
+        Map<Long, Map<String, Object>> byId = invoiceRepository.findFieldsByIdIn(ids, columns).stream()
+                .collect(Collectors.toMap(row -> (Long) row.get("id"), Function.identity()));
+
+        if (fields.contains(ITEMS_FIELD)) {
+            Map<Long, List<InvoiceItemDTO>> items = invoiceItemRepository.findByInvoiceIdInOrderById(ids).stream()
+                    .collect(Collectors.groupingBy(item -> item.getInvoice().getId(),
+                            Collectors.mapping(this::toItemDTO, Collectors.toList())));
+            byId.forEach((id, row) -> row.put(ITEMS_FIELD, items.getOrDefault(id, new ArrayList<>())));
+        }
+        return byId;
+    }
+
+    private Set<String> selectableInvoiceFields() {
+        Set<String> fields = new HashSet<>(InvoiceRepository.FIELD_PATHS.keySet());
+        fields.add(ITEMS_FIELD);
+        return fields;
+    }
+
+    private Map<Long, InvoiceSummaryDTO> loadSummaries(List<Long> ids) {
+        return invoiceRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(InvoiceSummaryDTO::getId, Function.identity()));
+    }
+
     private InvoiceDTO toDTO(Invoice invoice) {
         InvoiceDTO dto = new InvoiceDTO();
         dto.setId(invoice.getId());
@@ -202,6 +450,7 @@ public class InvoiceService {
         dto.setTotalAmount(invoice.getTotalAmount());
         dto.setAmountInWords(invoice.getAmountInWords());
         dto.setRemarks(invoice.getRemarks());
+        dto.setVersion(invoice.getVersion());
 
         if (invoice.getItems() != null) {
             dto.setItems(invoice.getItems().stream()
@@ -253,12 +502,13 @@ public class InvoiceService {
 
     private InvoiceItem toItemEntity(InvoiceItemDTO dto) {
         InvoiceItem item = new InvoiceItem();
+        copyItemFields(dto, item);
+        return item;
+    }
+
+    private void copyItemFields(InvoiceItemDTO dto, InvoiceItem item) {
         item.setLrNo(dto.getLrNo());
-        
-        if (dto.getLrDate() != null && !dto.getLrDate().isEmpty()) {
-            item.setLrDate(LocalDate.parse(dto.getLrDate()));
-        }
-        
+        item.setLrDate(dto.getLrDate() != null && !dto.getLrDate().isEmpty() ? LocalDate.parse(dto.getLrDate()) : null);
         item.setFromLocation(dto.getFromLocation());
         item.setToLocation(dto.getToLocation());
         item.setGoodsDescription(dto.getGoodsDescription());
@@ -267,8 +517,6 @@ public class InvoiceService {
         item.setVehicleNumber(dto.getVehicleNumber());
         item.setVehicleType(dto.getVehicleType());
         item.setAmount(nullSafe(dto.getAmount()));
-        
-        return item;
     }
 
     private BigDecimal nullSafe(BigDecimal value) {
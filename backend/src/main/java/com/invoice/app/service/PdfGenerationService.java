@@ -1,18 +1,22 @@
 package com.invoice.app.service;
 
+import com.invoice.app.dto.StatementLineDTO;
 import com.invoice.app.entity.Invoice;
 import com.invoice.app.entity.InvoiceItem;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.*;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class PdfGenerationService {
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
@@ -32,22 +36,119 @@ public class PdfGenerationService {
     private static final String BANK_BRANCH = "Mylapore Branch";
     private static final String BANK_IFSC = "CNRB0016015";
 
+    private static final float INVOICE_MARGIN = 20;
+    private static final float INVOICE_CONTENT_WIDTH = PageSize.A4.getWidth() - 2 * INVOICE_MARGIN;
+
+    // Invoice fonts and colours, built once and only read while rendering
+    private static final Font COMPANY_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 22, java.awt.Color.BLUE);
+    private static final Font COMPANY_ADDRESS_FONT = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 11);
+    private static final Font SMALL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private static final Font TINY_FONT = FontFactory.getFont(FontFactory.HELVETICA, 9);
+    private static final Font COPY_TYPE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, java.awt.Color.RED);
+    private static final java.awt.Color LR_HEADER_BACKGROUND = new java.awt.Color(240, 240, 240);
+    private static final String[] LR_HEADERS = {"L.R. No", "Date", "FROM", "To", "Description of Goods", "Pkgs"};
+
+    // Statement rows held in the table before it is written out
+    static final int STATEMENT_FLUSH_ROWS = 100;
+    // Height of the line left for the statement summary
+    private static final float STATEMENT_SUMMARY_HEIGHT = 14;
+
+    /**
+     * The letterhead (page 1) and the bank details, signature and declaration
+     * footer (page 2), which are the same on every invoice page. They are laid
+     * out once into this small PDF, and each invoice imports its pages as form
+     * XObjects: laid out once, stored once per invoice, and stored once in a
+     * merged PDF by PdfSmartCopy.
+     */
+    private final byte[] staticBlocks = renderStaticBlocks();
+
+    // Label printed at the top right of each copy of an invoice, in order
+    private final List<String> copies;
+
+    public PdfGenerationService(
+            @Value("${invoice.documents.copies:DUPLICATE COPY,ORIGINAL COPY}") String[] copies) {
+        this.copies = Arrays.stream(copies)
+                .map(String::trim)
+                .filter(copy -> !copy.isEmpty())
+                .collect(Collectors.toList());
+        if (this.copies.isEmpty()) {
+            throw new IllegalArgumentException("invoice.documents.copies must name at least one copy");
+        }
+    }
+
+    /**
+     * The labels of the copies in every invoice PDF, in the order they are printed.
+     */
+    public List<String> getCopies() {
+        return copies;
+    }
+
+    /**
+     * One copy of the invoice per configured copy label. The invoice is laid
+     * out once; every copy shows those same pages, imported as form XObjects,
+     * with its label stamped at the top right of its first page.
+     */
     public byte[] generateInvoicePdf(Invoice invoice) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4, 20, 20, 20, 20);
+        writeInvoicePdf(invoice, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Writes the invoice PDF, as {@link #generateInvoicePdf}, to {@code out}
+     * as it is produced. {@code out} is left open.
+     */
+    public void writeInvoicePdf(Invoice invoice, OutputStream out) {
+        byte[] body = generateInvoiceBody(invoice);
+
+        Document document = new Document(PageSize.A4, INVOICE_MARGIN, INVOICE_MARGIN, INVOICE_MARGIN, INVOICE_MARGIN);
         
         try {
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            writer.setFullCompression();
             document.open();
 
-            // Generate DUPLICATE COPY first
-            generateInvoicePage(document, invoice, "DUPLICATE COPY");
-            
-            // Add new page for ORIGINAL COPY
-            document.newPage();
-            generateInvoicePage(document, invoice, "ORIGINAL COPY");
+            PdfReader reader = new PdfReader(body);
+            PdfContentByte canvas = writer.getDirectContent();
+            for (String copy : copies) {
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    document.newPage();
+                    canvas.addTemplate(writer.getImportedPage(reader, page), 0, 0);
+                    if (page == 1) {
+                        // Copy Type Header (top right), on the line left free for it
+                        ColumnText.showTextAligned(canvas, Element.ALIGN_RIGHT, new Phrase(copy, COPY_TYPE_FONT),
+                                document.right(), document.top() - COPY_TYPE_FONT.getCalculatedLeading(1.5f), 0);
+                    }
+                }
+            }
 
-        } catch (DocumentException e) {
+        } catch (DocumentException | IOException e) {
+            throw new RuntimeException("Error generating PDF", e);
+        } finally {
+            document.close();
+        }
+    }
+
+    /**
+     * Lays out the invoice without a copy label, leaving its line free.
+     */
+    private byte[] generateInvoiceBody(Invoice invoice) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4, INVOICE_MARGIN, INVOICE_MARGIN, INVOICE_MARGIN, INVOICE_MARGIN);
+
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, baos);
+            document.open();
+
+            PdfReader blocks = new PdfReader(staticBlocks);
+            PdfImportedPage letterhead = writer.getImportedPage(blocks, 1);
+            PdfImportedPage footer = writer.getImportedPage(blocks, 2);
+            generateInvoicePage(document, invoice, letterhead, footer);
+
+        } catch (DocumentException | IOException e) {
             throw new RuntimeException("Error generating PDF", e);
         } finally {
             document.close();
@@ -56,51 +157,13 @@ public class PdfGenerationService {
         return baos.toByteArray();
     }
     
-    private void generateInvoicePage(Document document, Invoice invoice, String copyType) throws DocumentException {
-        // Fonts - increased sizes to use more of the A4 sheet
-        Font companyFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 22, java.awt.Color.BLUE);
-        Font companyAddrFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-        Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 11);
-        Font smallFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
-        Font tinyFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
-        Font copyTypeFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11, java.awt.Color.RED);
-        
-        // Copy Type Header (top right)
-        Paragraph copyHeader = new Paragraph(copyType, copyTypeFont);
-        copyHeader.setAlignment(Element.ALIGN_RIGHT);
-        document.add(copyHeader);
-        
-        // Company Header - centered with 1.5 line gaps
-        Paragraph companyName = new Paragraph(COMPANY_NAME, companyFont);
-        companyName.setAlignment(Element.ALIGN_CENTER);
-        companyName.setSpacingAfter(8);
-        document.add(companyName);
+    private void generateInvoicePage(Document document, Invoice invoice,
+                                     PdfImportedPage letterhead, PdfImportedPage footer) throws DocumentException {
+        // Room for the copy label, stamped on each copy afterwards
+        document.add(new Paragraph(" ", COPY_TYPE_FONT));
         
-        Paragraph companyAddr = new Paragraph(COMPANY_ADDRESS, companyAddrFont);
-        companyAddr.setAlignment(Element.ALIGN_CENTER);
-        companyAddr.setSpacingAfter(6);
-        document.add(companyAddr);
-        
-        Paragraph contactInfo = new Paragraph(COMPANY_CONTACT + "     " + COMPANY_EMAIL, smallFont);
-        contactInfo.setAlignment(Element.ALIGN_CENTER);
-        contactInfo.setSpacingAfter(6);
-        document.add(contactInfo);
-        
-        Paragraph gstInfo = new Paragraph(COMPANY_STATE + "  " + COMPANY_GSTIN + "  " + COMPANY_PAN, smallFont);
-        gstInfo.setAlignment(Element.ALIGN_CENTER);
-        gstInfo.setSpacingAfter(12);
-        document.add(gstInfo);
-        
-        // INVOICE Title - centered with box
-        PdfPTable invoiceTitleTable = new PdfPTable(1);
-        invoiceTitleTable.setWidthPercentage(20);
-        PdfPCell invoiceTitleCell = new PdfPCell(new Phrase("INVOICE", headerFont));
-        invoiceTitleCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        invoiceTitleCell.setPadding(3);
-        invoiceTitleCell.setBorder(Rectangle.BOX);
-        invoiceTitleTable.addCell(invoiceTitleCell);
-        document.add(invoiceTitleTable);
+        // Company header and INVOICE title
+        document.add(staticBlock(letterhead, 0));
         
         // Main layout table (Party on left, Invoice details on right)
         PdfPTable mainTable = new PdfPTable(2);
@@ -116,7 +179,7 @@ public class PdfGenerationService {
             partyInfo.append("GSTIN: ").append(invoice.getPartyGst());
         }
         
-        PdfPCell partyCell = new PdfPCell(new Phrase(partyInfo.toString(), normalFont));
+        PdfPCell partyCell = new PdfPCell(new Phrase(partyInfo.toString(), NORMAL_FONT));
         partyCell.setBorder(Rectangle.BOX);
         partyCell.setPadding(8);
         mainTable.addCell(partyCell);
@@ -127,7 +190,7 @@ public class PdfGenerationService {
         String dateStr = invoice.getInvoiceDate() != null ? invoice.getInvoiceDate().format(DATE_FORMAT) : "";
         invoiceDetails.append("DATE : ").append(dateStr);
         
-        PdfPCell invoiceCell = new PdfPCell(new Phrase(invoiceDetails.toString(), normalFont));
+        PdfPCell invoiceCell = new PdfPCell(new Phrase(invoiceDetails.toString(), NORMAL_FONT));
         invoiceCell.setBorder(Rectangle.BOX);
         invoiceCell.setPadding(8);
         mainTable.addCell(invoiceCell);
@@ -141,14 +204,14 @@ public class PdfGenerationService {
         contentTable.setSpacingBefore(8);
         
         // Left side: "DESCRIPTION OF GOODS/SERVICES" header
-        PdfPCell descHeaderCell = new PdfPCell(new Phrase("DESCRIPTION OF GOODS/SERVICES", headerFont));
+        PdfPCell descHeaderCell = new PdfPCell(new Phrase("DESCRIPTION OF GOODS/SERVICES", HEADER_FONT));
         descHeaderCell.setHorizontalAlignment(Element.ALIGN_CENTER);
         descHeaderCell.setPadding(6);
         descHeaderCell.setBorder(Rectangle.BOX);
         contentTable.addCell(descHeaderCell);
         
         // Right side: "Amount" header
-        PdfPCell amountHeaderCell = new PdfPCell(new Phrase("Amount", headerFont));
+        PdfPCell amountHeaderCell = new PdfPCell(new Phrase("Amount", HEADER_FONT));
         amountHeaderCell.setHorizontalAlignment(Element.ALIGN_CENTER);
         amountHeaderCell.setPadding(6);
         amountHeaderCell.setBorder(Rectangle.BOX);
@@ -187,7 +250,7 @@ public class PdfGenerationService {
                     }
                 }
                 
-                PdfPCell transChargesCell = new PdfPCell(new Phrase(transLine.toString(), normalFont));
+                PdfPCell transChargesCell = new PdfPCell(new Phrase(transLine.toString(), NORMAL_FONT));
                 transChargesCell.setBorder(Rectangle.BOTTOM);
                 transChargesCell.setPadding(4);
                 leftContent.addCell(transChargesCell);
@@ -198,27 +261,26 @@ public class PdfGenerationService {
                 lrTable.setWidths(new float[]{1f, 1f, 1f, 1.2f, 2f, 1.5f});
                 
                 // LR Headers
-                String[] lrHeaders = {"L.R. No", "Date", "FROM", "To", "Description of Goods", "Pkgs"};
-                for (String h : lrHeaders) {
-                    PdfPCell hCell = new PdfPCell(new Phrase(h, tinyFont));
+                for (String h : LR_HEADERS) {
+                    PdfPCell hCell = new PdfPCell(new Phrase(h, TINY_FONT));
                     hCell.setHorizontalAlignment(Element.ALIGN_CENTER);
                     hCell.setPadding(2);
                     hCell.setBorder(Rectangle.BOX);
-                    hCell.setBackgroundColor(new java.awt.Color(240, 240, 240));
+                    hCell.setBackgroundColor(LR_HEADER_BACKGROUND);
                     lrTable.addCell(hCell);
                 }
                 
                 // LR Data
-                addCell(lrTable, nullSafe(item.getLrNo()), tinyFont, Element.ALIGN_CENTER);
+                addCell(lrTable, nullSafe(item.getLrNo()), TINY_FONT, Element.ALIGN_CENTER);
                 String lrDateStr = item.getLrDate() != null ? item.getLrDate().format(DATE_FORMAT) : "";
-                addCell(lrTable, lrDateStr, tinyFont, Element.ALIGN_CENTER);
-                addCell(lrTable, nullSafe(item.getFromLocation()), tinyFont, Element.ALIGN_CENTER);
-                addCell(lrTable, nullSafe(item.getToLocation()), tinyFont, Element.ALIGN_CENTER);
-                addCell(lrTable, nullSafe(item.getGoodsDescription()), tinyFont, Element.ALIGN_CENTER);
+                addCell(lrTable, lrDateStr, TINY_FONT, Element.ALIGN_CENTER);
+                addCell(lrTable, nullSafe(item.getFromLocation()), TINY_FONT, Element.ALIGN_CENTER);
+                addCell(lrTable, nullSafe(item.getToLocation()), TINY_FONT, Element.ALIGN_CENTER);
+                addCell(lrTable, nullSafe(item.getGoodsDescription()), TINY_FONT, Element.ALIGN_CENTER);
                 
                 String pkg = nullSafe(item.getPackageType());
                 if (pkg.isEmpty()) pkg = "AS PER INVOICE";
-                addCell(lrTable, pkg, tinyFont, Element.ALIGN_CENTER);
+                addCell(lrTable, pkg, TINY_FONT, Element.ALIGN_CENTER);
                 
                 PdfPCell lrTableCell = new PdfPCell(lrTable);
                 lrTableCell.setBorder(Rectangle.NO_BORDER);
@@ -233,7 +295,7 @@ public class PdfGenerationService {
                 // Right cell - Amount
                 BigDecimal amt = item.getAmount() != null ? item.getAmount() : BigDecimal.ZERO;
                 itemsTotal = itemsTotal.add(amt);
-                PdfPCell amtCell = new PdfPCell(new Phrase(formatAmountNoDecimals(amt), normalFont));
+                PdfPCell amtCell = new PdfPCell(new Phrase(formatAmountNoDecimals(amt), NORMAL_FONT));
                 amtCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
                 amtCell.setVerticalAlignment(Element.ALIGN_TOP);
                 amtCell.setPadding(8);
@@ -250,13 +312,13 @@ public class PdfGenerationService {
         gstNoteTable.setWidthPercentage(100);
         gstNoteTable.setWidths(new float[]{85f, 15f});
         
-        PdfPCell gstNoteCell = new PdfPCell(new Phrase("GST TO BE PAID BY THE SERVICE RECEIPIENT", smallFont));
+        PdfPCell gstNoteCell = new PdfPCell(new Phrase("GST TO BE PAID BY THE SERVICE RECEIPIENT", SMALL_FONT));
         gstNoteCell.setHorizontalAlignment(Element.ALIGN_CENTER);
         gstNoteCell.setPadding(3);
         gstNoteCell.setBorder(Rectangle.BOX);
         gstNoteTable.addCell(gstNoteCell);
         
-        PdfPCell emptyCell = new PdfPCell(new Phrase("", smallFont));
+        PdfPCell emptyCell = new PdfPCell(new Phrase("", SMALL_FONT));
         emptyCell.setBorder(Rectangle.BOX);
         gstNoteTable.addCell(emptyCell);
         
@@ -269,13 +331,13 @@ public class PdfGenerationService {
         totalTable.setWidthPercentage(100);
         totalTable.setWidths(new float[]{85f, 15f});
         
-        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL", headerFont));
+        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL", HEADER_FONT));
         totalLabelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalLabelCell.setPadding(3);
         totalLabelCell.setBorder(Rectangle.BOX);
         totalTable.addCell(totalLabelCell);
         
-        PdfPCell totalAmountCell = new PdfPCell(new Phrase(formatAmountNoDecimals(grandTotal), headerFont));
+        PdfPCell totalAmountCell = new PdfPCell(new Phrase(formatAmountNoDecimals(grandTotal), HEADER_FONT));
         totalAmountCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalAmountCell.setPadding(3);
         totalAmountCell.setBorder(Rectangle.BOX);
@@ -285,14 +347,92 @@ public class PdfGenerationService {
         
         // Amount in Words
         String amountInWords = invoice.getAmountInWords() != null ? invoice.getAmountInWords() : "";
-        Paragraph amtWords = new Paragraph("Amount Chargeable in Words :\n" + amountInWords.toUpperCase(), normalFont);
+        Paragraph amtWords = new Paragraph("Amount Chargeable in Words :\n" + amountInWords.toUpperCase(), NORMAL_FONT);
         amtWords.setSpacingBefore(5);
         document.add(amtWords);
         
+        // Bank details, signature, declaration and jurisdiction
+        document.add(staticBlock(footer, 8));
+    }
+
+    /**
+     * Lays out the letterhead and footer blocks at the content width, each
+     * on its own full-height page, then cuts each page down to the height
+     * its block took.
+     */
+    private byte[] renderStaticBlocks() {
+        float pageHeight = PageSize.A4.getHeight();
+        List<List<Element>> blocks = List.of(letterheadElements(), footerElements());
+        float[] heights = new float[blocks.size()];
+
+        ByteArrayOutputStream laidOut = new ByteArrayOutputStream();
+        Document document = new Document(new Rectangle(INVOICE_CONTENT_WIDTH, pageHeight), 0, 0, 0, 0);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, laidOut);
+            document.open();
+            for (int i = 0; i < blocks.size(); i++) {
+                document.newPage();
+                for (Element element : blocks.get(i)) {
+                    document.add(element);
+                }
+                // Rounded up, with room for the bottom border of the last table
+                heights[i] = (float) Math.ceil(pageHeight - writer.getVerticalPosition(false)) + 1;
+            }
+        } catch (DocumentException e) {
+            throw new RuntimeException("Error laying out invoice letterhead", e);
+        } finally {
+            document.close();
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            PdfReader reader = new PdfReader(laidOut.toByteArray());
+            PdfStamper stamper = new PdfStamper(reader, baos);
+            for (int i = 0; i < heights.length; i++) {
+                reader.getPageN(i + 1).put(PdfName.MEDIABOX,
+                        new PdfRectangle(0, pageHeight - heights[i], INVOICE_CONTENT_WIDTH, pageHeight));
+            }
+            stamper.close();
+        } catch (DocumentException | IOException e) {
+            throw new RuntimeException("Error laying out invoice letterhead", e);
+        }
+        return baos.toByteArray();
+    }
+
+    private List<Element> letterheadElements() {
+        // Company Header - centered with 1.5 line gaps
+        Paragraph companyName = new Paragraph(COMPANY_NAME, COMPANY_FONT);
+        companyName.setAlignment(Element.ALIGN_CENTER);
+        companyName.setSpacingAfter(8);
+        
+        Paragraph companyAddr = new Paragraph(COMPANY_ADDRESS, COMPANY_ADDRESS_FONT);
+        companyAddr.setAlignment(Element.ALIGN_CENTER);
+        companyAddr.setSpacingAfter(6);
+        
+        Paragraph contactInfo = new Paragraph(COMPANY_CONTACT + "     " + COMPANY_EMAIL, SMALL_FONT);
+        contactInfo.setAlignment(Element.ALIGN_CENTER);
+        contactInfo.setSpacingAfter(6);
+        
+        Paragraph gstInfo = new Paragraph(COMPANY_STATE + "  " + COMPANY_GSTIN + "  " + COMPANY_PAN, SMALL_FONT);
+        gstInfo.setAlignment(Element.ALIGN_CENTER);
+        gstInfo.setSpacingAfter(12);
+        
+        // INVOICE Title - centered with box
+        PdfPTable invoiceTitleTable = new PdfPTable(1);
+        invoiceTitleTable.setWidthPercentage(20);
+        PdfPCell invoiceTitleCell = new PdfPCell(new Phrase("INVOICE", HEADER_FONT));
+        invoiceTitleCell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        invoiceTitleCell.setPadding(3);
+        invoiceTitleCell.setBorder(Rectangle.BOX);
+        invoiceTitleTable.addCell(invoiceTitleCell);
+
+        return List.of(companyName, companyAddr, contactInfo, gstInfo, invoiceTitleTable);
+    }
+
+    private List<Element> footerElements() throws DocumentException {
         // Bottom section: Bank Details (left) and Signature (right)
         PdfPTable bottomTable = new PdfPTable(2);
         bottomTable.setWidthPercentage(100);
-        bottomTable.setSpacingBefore(8);
         bottomTable.setWidths(new float[]{50f, 50f});
         
         // Bank Details (left) - with GST note above bank details
@@ -300,14 +440,14 @@ public class PdfGenerationService {
         bankContent.setWidthPercentage(100);
         
         // GST Note section (at top of left column, above bank details)
-        PdfPCell gstConsignorCell = new PdfPCell(new Phrase("GST TO BE PAID BY CONSIGNOR/\nCONSIGNEE/GTA/OTHERS", normalFont));
+        PdfPCell gstConsignorCell = new PdfPCell(new Phrase("GST TO BE PAID BY CONSIGNOR/\nCONSIGNEE/GTA/OTHERS", NORMAL_FONT));
         gstConsignorCell.setBorder(Rectangle.BOTTOM);
         gstConsignorCell.setPadding(5);
         gstConsignorCell.setHorizontalAlignment(Element.ALIGN_CENTER);
         bankContent.addCell(gstConsignorCell);
         
         // Bank title - centered
-        PdfPCell bankTitleCell = new PdfPCell(new Phrase("Company Bank Details", headerFont));
+        PdfPCell bankTitleCell = new PdfPCell(new Phrase("Company Bank Details", HEADER_FONT));
         bankTitleCell.setBorder(Rectangle.NO_BORDER);
         bankTitleCell.setPadding(3);
         bankTitleCell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -318,10 +458,10 @@ public class PdfGenerationService {
         bankDetailsTable.setWidthPercentage(100);
         bankDetailsTable.setWidths(new float[]{35f, 65f});
         
-        addBankDetailRow(bankDetailsTable, "Bank Name", BANK_NAME, smallFont);
-        addBankDetailRow(bankDetailsTable, "A/C. No", BANK_ACCOUNT, smallFont);
-        addBankDetailRow(bankDetailsTable, "Branch", BANK_BRANCH, smallFont);
-        addBankDetailRow(bankDetailsTable, "IFSC Code", BANK_IFSC, smallFont);
+        addBankDetailRow(bankDetailsTable, "Bank Name", BANK_NAME, SMALL_FONT);
+        addBankDetailRow(bankDetailsTable, "A/C. No", BANK_ACCOUNT, SMALL_FONT);
+        addBankDetailRow(bankDetailsTable, "Branch", BANK_BRANCH, SMALL_FONT);
+        addBankDetailRow(bankDetailsTable, "IFSC Code", BANK_IFSC, SMALL_FONT);
         
         PdfPCell bankDetailsCell = new PdfPCell(bankDetailsTable);
         bankDetailsCell.setBorder(Rectangle.NO_BORDER);
@@ -338,32 +478,57 @@ public class PdfGenerationService {
         signInfo.append("         FOR ").append(COMPANY_NAME).append("\n\n\n\n\n");
         signInfo.append("    Authorised signature");
         
-        PdfPCell signCell = new PdfPCell(new Phrase(signInfo.toString(), normalFont));
+        PdfPCell signCell = new PdfPCell(new Phrase(signInfo.toString(), NORMAL_FONT));
         signCell.setBorder(Rectangle.BOX);
         signCell.setPadding(5);
         signCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         bottomTable.addCell(signCell);
         
-        document.add(bottomTable);
-        
         // Declaration
-        Paragraph declaration = new Paragraph("Declaration          \nThe goods were dispatched as per above details. \nKindly payment & oblige.", smallFont);
+        Paragraph declaration = new Paragraph("Declaration          \nThe goods were dispatched as per above details. \nKindly payment & oblige.", SMALL_FONT);
         declaration.setSpacingBefore(5);
-        document.add(declaration);
         
         // Jurisdiction
-        Paragraph jurisdiction = new Paragraph("E. & O.E SUBJECT TO CHENNAI JURISDICTION", smallFont);
+        Paragraph jurisdiction = new Paragraph("E. & O.E SUBJECT TO CHENNAI JURISDICTION", SMALL_FONT);
         jurisdiction.setAlignment(Element.ALIGN_CENTER);
         jurisdiction.setSpacingBefore(5);
-        document.add(jurisdiction);
+
+        return List.of(bottomTable, declaration, jurisdiction);
     }
 
-    public byte[] generateMonthlyStatementPdf(List<Invoice> invoices, int year, int month, String monthName) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * Places an imported block across the full content width, in the flow.
+     */
+    private PdfPTable staticBlock(PdfImportedPage block, float spacingBefore) throws DocumentException {
+        PdfPTable table = new PdfPTable(1);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(spacingBefore);
+        PdfPCell cell = new PdfPCell(Image.getInstance(block), false);
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setPadding(0);
+        table.addCell(cell);
+        return table;
+    }
+
+    /**
+     * Writes a statement of the invoices in {@code lines}, in that order, to
+     * {@code out} as it is produced. {@code out} is left open. The table is
+     * added to the document every {@link #STATEMENT_FLUSH_ROWS} rows and its
+     * written rows are then dropped, with the column headings repeated on
+     * every page, so memory use does not grow with the number of lines.
+     * The summary at the top and the TOTAL row are both counted from the
+     * lines as they are written; the summary is a placeholder filled in once
+     * the last line is known, so the lines are read only once and the figures
+     * always agree with the rows printed.
+     */
+    public void writeMonthlyStatementPdf(Iterable<StatementLineDTO> lines, int year, String monthName,
+                                         OutputStream out) {
         Document document = new Document(PageSize.A4.rotate(), 36, 36, 36, 36);
 
         try {
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            writer.setFullCompression();
             document.open();
 
             Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
@@ -376,23 +541,20 @@ public class PdfGenerationService {
             title.setSpacingAfter(20);
             document.add(title);
 
-            // Summary
-            BigDecimal totalAmount = invoices.stream()
-                    .map(Invoice::getTotalAmount)
-                    .filter(amt -> amt != null)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            Paragraph summary = new Paragraph(
-                    "Total Invoices: " + invoices.size() + "    |    Total Amount: " + formatCurrency(totalAmount),
-                    headerFont
-            );
-            summary.setAlignment(Element.ALIGN_CENTER);
-            summary.setSpacingAfter(20);
-            document.add(summary);
-
-            // Invoices table
+            // Summary, filled in after the table
+            PdfTemplate summary = writer.getDirectContent().createTemplate(
+                    document.right() - document.left(), STATEMENT_SUMMARY_HEIGHT);
+            Image summaryImage = Image.getInstance(summary);
+            summaryImage.setSpacingAfter(20);
+            document.add(summaryImage);
+
+            // Invoices table, written in pieces
             PdfPTable table = new PdfPTable(new float[]{0.5f, 1.5f, 1f, 2f, 2f, 1.5f, 1.2f});
             table.setWidthPercentage(100);
+            // For measuring rows before they are added
+            table.setTotalWidth(document.right() - document.left());
+            table.setHeaderRows(1);
+            table.setComplete(false);
 
             String[] headers = {"#", "Invoice No", "Date", "Party Name", "Address", "GST", "Amount"};
             for (String header : headers) {
@@ -404,16 +566,21 @@ public class PdfGenerationService {
             }
 
             int rowNum = 1;
-            for (Invoice inv : invoices) {
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (StatementLineDTO line : lines) {
                 addCell(table, String.valueOf(rowNum++), normalFont, Element.ALIGN_CENTER);
-                addCell(table, nullSafe(inv.getInvoiceNo()), normalFont, Element.ALIGN_LEFT);
-                String dateStr = inv.getInvoiceDate() != null ? inv.getInvoiceDate().format(DATE_FORMAT) : "";
+                addCell(table, nullSafe(line.getInvoiceNo()), normalFont, Element.ALIGN_LEFT);
+                String dateStr = line.getInvoiceDate() != null ? line.getInvoiceDate().format(DATE_FORMAT) : "";
                 addCell(table, dateStr, normalFont, Element.ALIGN_CENTER);
-                addCell(table, nullSafe(inv.getPartyName()), normalFont, Element.ALIGN_LEFT);
-                addCell(table, nullSafe(inv.getPartyAddress()), normalFont, Element.ALIGN_LEFT);
-                addCell(table, nullSafe(inv.getPartyGst()), normalFont, Element.ALIGN_CENTER);
-                BigDecimal amt = inv.getTotalAmount() != null ? inv.getTotalAmount() : BigDecimal.ZERO;
+                addCell(table, nullSafe(line.getPartyName()), normalFont, Element.ALIGN_LEFT);
+                addCell(table, nullSafe(line.getPartyAddress()), normalFont, Element.ALIGN_LEFT);
+                addCell(table, nullSafe(line.getPartyGst()), normalFont, Element.ALIGN_CENTER);
+                BigDecimal amt = line.getTotalAmount() != null ? line.getTotalAmount() : BigDecimal.ZERO;
                 addCell(table, formatCurrency(amt), normalFont, Element.ALIGN_RIGHT);
+                totalAmount = totalAmount.add(amt);
+                if ((rowNum - 1) % STATEMENT_FLUSH_ROWS == 0) {
+                    addStatementRows(document, writer, table);
+                }
             }
 
             // Total row
@@ -430,15 +597,46 @@ public class PdfGenerationService {
             totalAmountCell.setBackgroundColor(new java.awt.Color(240, 240, 240));
             table.addCell(totalAmountCell);
 
-            document.add(table);
+            table.setComplete(true);
+            addStatementRows(document, writer, table);
+
+            writeCentered(summary, "Total Invoices: " + (rowNum - 1) + "    |    Total Amount: " +
+                    formatCurrency(totalAmount), headerFont);
 
         } catch (DocumentException e) {
             throw new RuntimeException("Error generating monthly statement PDF", e);
         } finally {
             document.close();
         }
+    }
 
-        return baos.toByteArray();
+    /**
+     * Writes {@code text} centred on one line in {@code template}.
+     */
+    private void writeCentered(PdfTemplate template, String text, Font font) {
+        BaseFont baseFont = font.getCalculatedBaseFont(false);
+        template.beginText();
+        template.setFontAndSize(baseFont, font.getSize());
+        template.showTextAligned(Element.ALIGN_CENTER, text, template.getWidth() / 2,
+                baseFont.getDescentPoint(text, font.getSize()) * -1, 0);
+        template.endText();
+    }
+
+    /**
+     * Writes the rows of the statement table added since the last call and
+     * drops them from it. A table that has been written before does not draw
+     * its headings at the start of the next piece, so when that piece starts
+     * a page (the page is started here if its first row would not fit), the
+     * headings are put back.
+     */
+    private void addStatementRows(Document document, PdfWriter writer, PdfPTable table) throws DocumentException {
+        if (writer.getVerticalPosition(true) - table.getRowHeight(table.getHeaderRows()) < document.bottom()) {
+            document.newPage();
+        }
+        if (writer.getVerticalPosition(true) >= document.top()) {
+            table.setSkipFirstHeader(false);
+        }
+        document.add(table);
     }
 
     private void addCell(PdfPTable table, String text, Font font, int alignment) {
@@ -0,0 +1,101 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.StatementLineDTO;
+import com.invoice.app.repository.InvoiceRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Renders statement PDFs of the invoices dated in a period, for a month or
+ * any report range.
+ *
+ * The rows are read a chunk at a time by keyset, each chunk in its own
+ * read-only transaction, as the table is written. The totals are summed from
+ * those same rows, so they match what is printed even when invoices change
+ * while the statement is being written. Only the statement columns are read,
+ * into DTOs rather than entities, so nothing collects in the persistence
+ * context. Memory use therefore does not grow with the number of invoices,
+ * and no connection is held while the PDF is written to a slow client.
+ */
+@Service
+public class StatementPdfService {
+
+    // Statement rows read per transaction
+    static final int LOAD_CHUNK_SIZE = 500;
+
+    private final InvoiceRepository invoiceRepository;
+    private final PdfGenerationService pdfGenerationService;
+    private final TransactionTemplate readTransaction;
+
+    public StatementPdfService(InvoiceRepository invoiceRepository,
+                               PdfGenerationService pdfGenerationService,
+                               PlatformTransactionManager transactionManager) {
+        this.invoiceRepository = invoiceRepository;
+        this.pdfGenerationService = pdfGenerationService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the statement of the invoices dated in [startDate,
+     * endDateExclusive), oldest first, to {@code out}, titled with
+     * {@code periodName} and {@code year}. {@code out} is left open.
+     */
+    public void writeStatementPdf(LocalDate startDate, LocalDate endDateExclusive, int year, String periodName,
+                                  OutputStream out) {
+        pdfGenerationService.writeMonthlyStatementPdf(() -> new LineIterator(startDate, endDateExclusive),
+                year, periodName, out);
+    }
+
+    private List<StatementLineDTO> loadLines(LocalDate startDate, LocalDate endDateExclusive,
+                                             StatementLineDTO after) {
+        PageRequest chunk = PageRequest.of(0, LOAD_CHUNK_SIZE);
+        return readTransaction.execute(status -> after == null
+                ? invoiceRepository.findStatementLines(startDate, endDateExclusive, chunk)
+                : invoiceRepository.findStatementLinesAfter(after.getInvoiceDate(), after.getId(),
+                        endDateExclusive, chunk));
+    }
+
+    /**
+     * The statement rows of the period, loading the next chunk when the one
+     * in hand runs out.
+     */
+    private class LineIterator implements Iterator<StatementLineDTO> {
+        private final LocalDate startDate;
+        private final LocalDate endDateExclusive;
+        private List<StatementLineDTO> chunk = List.of();
+        private int next;
+        private boolean lastChunk;
+
+        LineIterator(LocalDate startDate, LocalDate endDateExclusive) {
+            this.startDate = startDate;
+            this.endDateExclusive = endDateExclusive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == chunk.size() && !lastChunk) {
+                StatementLineDTO after = chunk.isEmpty() ? null : chunk.get(chunk.size() - 1);
+                chunk = loadLines(startDate, endDateExclusive, after);
+                next = 0;
+                lastChunk = chunk.size() < LOAD_CHUNK_SIZE;
+            }
+            return next < chunk.size();
+        }
+
+        @Override
+        public StatementLineDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(next++);
+        }
+    }
+}
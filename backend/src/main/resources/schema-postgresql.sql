@@ -0,0 +1,15 @@
+-- PostgreSQL schema additions applied on startup in the production profile,
+-- after Hibernate has created or updated the tables (see application-production.properties).
+-- Every statement must be idempotent.
+
+-- =====================================================
+-- Trigram indexes for invoice and LR number search
+-- Serve the leading-wildcard LIKE predicates in InvoiceRepository.SEARCH_FILTER
+-- =====================================================
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_invoices_invoice_no_trgm
+    ON invoices USING gin (invoice_no gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_invoice_items_lr_no_trgm
+    ON invoice_items USING gin (LOWER(lr_no) gin_trgm_ops);
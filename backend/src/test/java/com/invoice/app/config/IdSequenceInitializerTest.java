@@ -0,0 +1,93 @@
+package com.invoice.app.config;
+
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.InvoiceItem;
+import com.invoice.app.repository.InvoiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction because restarting a sequence is DDL and
+ * commits whatever the transaction holds.
+ */
+@DataJpaTest
+@Import(IdSequenceInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequenceInitializerTest {
+
+    @Autowired
+    private IdSequenceInitializer idSequenceInitializer;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+    }
+
+    @Test
+    void synchronize_shouldMoveSequencesPastExistingIds() {
+        // Rows written while ids still came from IDENTITY columns
+        jdbcTemplate.update("INSERT INTO invoices (id, invoice_no) VALUES (1000, 'LEGACY-1')");
+        jdbcTemplate.update("INSERT INTO invoice_items (id, invoice_id, lr_no) VALUES (5000, 1000, 'LR-1')");
+
+        idSequenceInitializer.synchronize();
+        idSequenceInitializer.synchronize();
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo("NEW-1");
+        InvoiceItem item = new InvoiceItem();
+        item.setLrNo("LR-2");
+        invoice.addItem(item);
+        Invoice saved = invoiceRepository.save(invoice);
+
+        assertTrue(saved.getId() > 1000, "invoice id " + saved.getId());
+        assertTrue(saved.getItems().get(0).getId() > 5000, "item id " + saved.getItems().get(0).getId());
+    }
+
+    @Test
+    void synchronize_shouldNotUseUpIdsOnEveryStartup() {
+        jdbcTemplate.update("INSERT INTO invoices (id, invoice_no) VALUES (2000, 'LEGACY-2')");
+        idSequenceInitializer.synchronize();
+        long next = nextValue("invoices_seq");
+
+        idSequenceInitializer.synchronize();
+        idSequenceInitializer.synchronize();
+
+        assertEquals(next, nextValue("invoices_seq"));
+    }
+
+    @Test
+    void moveTableSequence_shouldOnlyMoveForward() {
+        // As Hibernate creates it where sequences are emulated with tables
+        jdbcTemplate.execute("CREATE TABLE legacy_seq (next_val BIGINT)");
+        try {
+            jdbcTemplate.update("INSERT INTO legacy_seq VALUES (1)");
+
+            idSequenceInitializer.moveTableSequence("legacy_seq", 1050);
+            assertEquals(1050, jdbcTemplate.queryForObject("SELECT next_val FROM legacy_seq", Long.class));
+
+            idSequenceInitializer.moveTableSequence("legacy_seq", 60);
+            assertEquals(1050, jdbcTemplate.queryForObject("SELECT next_val FROM legacy_seq", Long.class));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE legacy_seq");
+        }
+    }
+
+    private long nextValue(String sequenceName) {
+        return jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES " +
+                "WHERE LOWER(SEQUENCE_NAME) = ?", Long.class, sequenceName);
+    }
+}
@@ -0,0 +1,133 @@
+package com.invoice.app.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.invoice.app.entity.Client;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import javax.sql.DataSource;
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes JPA transactions over two in-memory H2 databases standing in for the
+ * primary and a replica that has not yet seen the latest rename of client 1.
+ * The second-level cache gets a cache manager of its own, as Hibernate closes
+ * it along with the entity manager factory.
+ */
+class ReplicaJpaTransactionManagerTest {
+
+    private EntityManagerFactory entityManagerFactory;
+    private JpaTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary", "Acme Freight Carriers");
+        DataSource replica = database("replica", "Acme Freight");
+
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager(
+                URI.create("replica-jpa-test"), getClass().getClassLoader());
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(ReadWriteRoutingDataSource.create(primary, replica));
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setManagedTypes(PersistenceManagedTypes.of(Client.class.getName()));
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.boot.allow_jdbc_metadata_access", "false",
+                // As in application-production.properties
+                "hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION",
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                "hibernate.javax.cache.cache_manager", cacheManager,
+                "hibernate.javax.cache.missing_cache_strategy", "create"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+
+        transactionManager = new ReplicaJpaTransactionManager();
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+        transactionManager.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void readOnlyTransactions_shouldReadTheReplicaWithoutFillingTheCache() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertEquals("Acme Freight", readOnly.execute(status -> clientName()));
+        assertFalse(entityManagerFactory.getCache().contains(Client.class, 1L));
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        assertEquals("Acme Freight Carriers", readWrite.execute(status -> clientName()));
+        assertTrue(entityManagerFactory.getCache().contains(Client.class, 1L));
+    }
+
+    @Test
+    void readOnlyTransactions_shouldStillReadCachedEntities() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        readWrite.execute(status -> clientName());
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertEquals("Acme Freight Carriers", readOnly.execute(status -> clientName()));
+    }
+
+    @Test
+    void entityManagerUsedAcrossTransactions_shouldStoreAgainAfterAReadOnlyOne() {
+        // As with open-in-view, where one entity manager serves the whole request
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(
+                entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.execute(status -> clientName());
+            entityManager.clear();
+
+            TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+            assertEquals("Acme Freight Carriers", readWrite.execute(status -> clientName()));
+            assertTrue(entityManagerFactory.getCache().contains(Client.class, 1L));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    private String clientName() {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        return entityManager.find(Client.class, 1L).getName();
+    }
+
+    private DataSource database(String name, String clientName) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:replica_jpa_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS clients (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, " +
+                "address VARCHAR(500), gst_number VARCHAR(20), phone VARCHAR(20), email VARCHAR(100), " +
+                "version BIGINT DEFAULT 0 NOT NULL)");
+        template.execute("DELETE FROM clients");
+        template.update("INSERT INTO clients (id, name) VALUES (1, ?)", clientName);
+        return dataSource;
+    }
+}
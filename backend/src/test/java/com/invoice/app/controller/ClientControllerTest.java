@@ -10,7 +10,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -31,8 +33,8 @@ class ClientControllerTest {
 
     @Test
     void searchClients_shouldReturnMatchingClients() throws Exception {
-        ClientDTO client1 = new ClientDTO(1L, "ABC Corp", "123 Main St", "GST123", "1234567890", "abc@test.com");
-        ClientDTO client2 = new ClientDTO(2L, "ABC Ltd", "456 Oak Ave", "GST456", "0987654321", "abcltd@test.com");
+        ClientDTO client1 = new ClientDTO(1L, "ABC Corp", "123 Main St", "GST123", "1234567890", "abc@test.com", 0L);
+        ClientDTO client2 = new ClientDTO(2L, "ABC Ltd", "456 Oak Ave", "GST456", "0987654321", "abcltd@test.com", 0L);
 
         when(clientService.searchClients(eq("ABC"), eq(10))).thenReturn(Arrays.asList(client1, client2));
 
@@ -45,10 +47,23 @@ class ClientControllerTest {
                 .andExpect(jsonPath("$[1].name").value("ABC Ltd"));
     }
 
+    @Test
+    void getAllClients_withFields_shouldReturnOnlyThoseFields() throws Exception {
+        Map<String, Object> client = new LinkedHashMap<>();
+        client.put("id", 1L);
+        client.put("name", "ABC Corp");
+        when(clientService.getAllClientFields("name")).thenReturn(List.of(client));
+
+        mockMvc.perform(get("/api/clients").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("ABC Corp"))
+                .andExpect(jsonPath("$[0].address").doesNotExist());
+    }
+
     @Test
     void createClient_shouldReturnCreatedClient() throws Exception {
-        ClientDTO inputDTO = new ClientDTO(null, "New Client", "789 Pine Rd", "GST789", "5555555555", "new@test.com");
-        ClientDTO outputDTO = new ClientDTO(1L, "New Client", "789 Pine Rd", "GST789", "5555555555", "new@test.com");
+        ClientDTO inputDTO = new ClientDTO(null, "New Client", "789 Pine Rd", "GST789", "5555555555", "new@test.com", null);
+        ClientDTO outputDTO = new ClientDTO(1L, "New Client", "789 Pine Rd", "GST789", "5555555555", "new@test.com", 0L);
 
         when(clientService.createClient(any(ClientDTO.class))).thenReturn(outputDTO);
 
@@ -62,7 +77,7 @@ class ClientControllerTest {
 
     @Test
     void getClient_shouldReturnClient() throws Exception {
-        ClientDTO client = new ClientDTO(1L, "Test Client", "Test Address", "GST123", "1234567890", "test@test.com");
+        ClientDTO client = new ClientDTO(1L, "Test Client", "Test Address", "GST123", "1234567890", "test@test.com", 0L);
 
         when(clientService.getClient(1L)).thenReturn(client);
 
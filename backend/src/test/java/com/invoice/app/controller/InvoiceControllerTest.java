@@ -1,27 +1,57 @@
 package com.invoice.app.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.app.config.GlobalExceptionHandler;
 import com.invoice.app.dto.InvoiceDTO;
 import com.invoice.app.dto.InvoiceItemDTO;
+import com.invoice.app.dto.InvoicePageDTO;
+import com.invoice.app.dto.InvoiceSummaryDTO;
 import com.invoice.app.entity.Invoice;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.ExcelGenerationService;
+import com.invoice.app.service.InvoicePdfBundleService;
 import com.invoice.app.service.InvoiceService;
 import com.invoice.app.service.PdfGenerationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.ZipInputStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InvoiceController.class)
+@Import(DocumentCache.class)
 class InvoiceControllerTest {
 
     @Autowired
@@ -36,6 +66,20 @@ class InvoiceControllerTest {
     @MockBean
     private PdfGenerationService pdfGenerationService;
 
+    @MockBean
+    private ExcelGenerationService excelGenerationService;
+
+    @MockBean
+    private InvoicePdfBundleService invoicePdfBundleService;
+
+    @Autowired
+    private DocumentCache documentCache;
+
+    @BeforeEach
+    void clearDocumentCache() {
+        documentCache.invalidateAll();
+    }
+
     @Test
     void createInvoice_shouldReturnCreatedInvoice() throws Exception {
         InvoiceDTO inputDTO = new InvoiceDTO();
@@ -50,6 +94,7 @@ class InvoiceControllerTest {
         outputDTO.setInvoiceDate("2024-01-15");
         outputDTO.setPartyName("Test Client");
         outputDTO.setTotalAmount(new BigDecimal("5000.00"));
+        outputDTO.setVersion(0L);
 
         when(invoiceService.createInvoice(any(InvoiceDTO.class))).thenReturn(outputDTO);
 
@@ -68,15 +113,56 @@ class InvoiceControllerTest {
         dto.setId(1L);
         dto.setInvoiceNo("INV-001");
         dto.setPartyName("Test Client");
+        dto.setVersion(3L);
 
+        when(invoiceService.getInvoiceVersion(1L)).thenReturn(3L);
         when(invoiceService.getInvoice(1L)).thenReturn(dto);
 
         mockMvc.perform(get("/api/invoices/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.invoiceNo").value("INV-001"));
     }
 
+    @Test
+    void getInvoice_shouldReturnNotModifiedForCurrentVersion() throws Exception {
+        when(invoiceService.getInvoiceVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/invoices/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(invoiceService, never()).getInvoice(anyLong());
+    }
+
+    @Test
+    void updateInvoice_shouldPassIfMatchVersionAndRejectStaleOnes() throws Exception {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceNo("INV-001");
+        InvoiceDTO updated = new InvoiceDTO();
+        updated.setId(1L);
+        updated.setVersion(4L);
+
+        when(invoiceService.updateInvoice(eq(1L), any(InvoiceDTO.class), eq(3L))).thenReturn(updated);
+        when(invoiceService.updateInvoice(eq(1L), any(InvoiceDTO.class), eq(2L)))
+                .thenThrow(new GlobalExceptionHandler.PreconditionFailedException("changed"));
+
+        mockMvc.perform(put("/api/invoices/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+
+        mockMvc.perform(put("/api/invoices/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void searchInvoices_shouldReturnMatchingInvoices() throws Exception {
         InvoiceDTO dto1 = new InvoiceDTO();
@@ -87,27 +173,339 @@ class InvoiceControllerTest {
         dto2.setId(2L);
         dto2.setInvoiceNo("INV-002");
 
-        when(invoiceService.searchInvoices(eq("INV"), isNull())).thenReturn(Arrays.asList(dto1, dto2));
+        when(invoiceService.searchInvoices(eq("INV"), isNull(), isNull(), isNull()))
+                .thenReturn(new InvoicePageDTO<>(Arrays.asList(dto1, dto2), null));
 
         mockMvc.perform(get("/api/invoices/search")
                         .param("invoiceNo", "INV"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().doesNotExist(InvoiceController.NEXT_CURSOR_HEADER));
     }
 
     @Test
-    void getInvoicePdf_shouldReturnPdf() throws Exception {
+    void getAllInvoices_shouldReturnNextCursorHeader() throws Exception {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setId(1L);
+        dto.setInvoiceNo("INV-001");
+
+        when(invoiceService.getInvoicePage(eq("abc"), eq(1)))
+                .thenReturn(new InvoicePageDTO<>(List.of(dto), "next"));
+
+        mockMvc.perform(get("/api/invoices")
+                        .param("cursor", "abc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(InvoiceController.NEXT_CURSOR_HEADER, "next"));
+    }
+
+    @Test
+    void getAllInvoices_shouldReturnSummariesForSummaryView() throws Exception {
+        InvoiceSummaryDTO summary = new InvoiceSummaryDTO(1L, "INV-001", "2024-01-15", "Test Client", new BigDecimal("5000.00"));
+
+        when(invoiceService.searchInvoiceSummaries(isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(new InvoicePageDTO<>(List.of(summary), null));
+
+        mockMvc.perform(get("/api/invoices")
+                        .param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].invoiceNo").value("INV-001"))
+                .andExpect(jsonPath("$[0].totalAmount").value(5000.00))
+                .andExpect(jsonPath("$[0].items").doesNotExist());
+    }
+
+    @Test
+    void exportInvoices_shouldStreamAJsonArray() throws Exception {
+        InvoiceSummaryDTO first = new InvoiceSummaryDTO(2L, "INV-002", "2024-01-16", "Test Client", new BigDecimal("700.00"));
+        InvoiceSummaryDTO second = new InvoiceSummaryDTO(1L, "INV-001", "2024-01-15", "Test Client", new BigDecimal("500.00"));
+        doAnswer(invocation -> {
+            Consumer<InvoiceSummaryDTO> action = invocation.getArgument(2);
+            action.accept(first);
+            action.accept(second);
+            return null;
+        }).when(invoiceService).exportInvoiceSummaries(eq("INV"), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/export")
+                        .param("invoiceNo", "INV")
+                        .param("view", "summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].invoiceNo").value("INV-002"))
+                .andExpect(jsonPath("$[1].invoiceNo").value("INV-001"));
+    }
+
+    @Test
+    void getInvoicePdfBundle_shouldStreamAZipOfPdfsInOrder() throws Exception {
+        Invoice first = new Invoice();
+        first.setId(7L);
+        first.setInvoiceNo("INV/2024-25/001");
+        Invoice second = new Invoice();
+        second.setId(8L);
+        second.setInvoiceNo("INV/2024-25/002");
+        LocalDate from = LocalDate.of(2024, 8, 1);
+        LocalDate to = LocalDate.of(2024, 8, 31);
+        when(invoicePdfBundleService.findInvoiceIds(from, to, 3L)).thenReturn(List.of(7L, 8L));
+        doAnswer(invocation -> {
+            InvoicePdfBundleService.PdfConsumer consumer = invocation.getArgument(1);
+            consumer.accept(first, "first pdf".getBytes());
+            consumer.accept(second, "second pdf".getBytes());
+            return null;
+        }).when(invoicePdfBundleService).renderInvoicePdfs(eq(List.of(7L, 8L)), any());
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/pdf-bundle")
+                        .param("from", "2024-08-01")
+                        .param("to", "2024-08-31")
+                        .param("partyId", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] zip = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        containsString("invoices-from-2024-08-01-to-2024-08-31-party-3.zip")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (ZipInputStream entries = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            assertEquals("invoice-INV-2024-25-001.pdf", entries.getNextEntry().getName());
+            assertEquals("first pdf", new String(entries.readAllBytes()));
+            assertEquals("invoice-INV-2024-25-002.pdf", entries.getNextEntry().getName());
+            assertEquals("second pdf", new String(entries.readAllBytes()));
+            assertNull(entries.getNextEntry());
+        }
+    }
+
+    @Test
+    void getInvoicePdfBundle_shouldRequireADateRangeOrParty() throws Exception {
+        mockMvc.perform(get("/api/invoices/pdf-bundle").param("from", "2024-08-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/invoices/pdf-bundle")
+                        .param("from", "2024-08-31")
+                        .param("to", "2024-08-01"))
+                .andExpect(status().isBadRequest());
+
+        verify(invoicePdfBundleService, never()).findInvoiceIds(any(), any(), any());
+    }
+
+    @Test
+    void getMergedInvoicePdf_shouldStreamTheGivenInvoicesInOrder() throws Exception {
+        when(invoicePdfBundleService.findExistingInvoiceIds(List.of(9L, 4L, 12L, 6L))).thenReturn(List.of(9L, 4L, 6L));
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("merged pdf".getBytes());
+            return null;
+        }).when(invoicePdfBundleService).mergeInvoicePdfs(eq(List.of(9L, 4L, 6L)), any());
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/pdf-merged").param("ids", "9,4,12,6"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(content().string("merged pdf"));
+        verify(invoicePdfBundleService, never()).findInvoiceIds(any(), any(), any());
+    }
+
+    @Test
+    void getMergedInvoicePdf_shouldReturnNotFoundWhenNothingMatches() throws Exception {
+        when(invoicePdfBundleService.findInvoiceIds(null, null, 3L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/invoices/pdf-merged").param("partyId", "3"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getMergedInvoicePdf_shouldReturnNotFoundWhenNoneOfTheIdsExist() throws Exception {
+        when(invoicePdfBundleService.findExistingInvoiceIds(List.of(98L, 99L))).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/invoices/pdf-merged").param("ids", "98,99"))
+                .andExpect(status().isNotFound());
+        verify(invoicePdfBundleService, never()).mergeInvoicePdfs(any(), any());
+    }
+
+    @Test
+    void getMergedInvoicePdf_shouldRejectTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, InvoiceController.MAX_MERGED_INVOICES + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/invoices/pdf-merged").param("ids", ids))
+                .andExpect(status().isBadRequest());
+        verify(invoicePdfBundleService, never()).findExistingInvoiceIds(any());
+    }
+
+    @Test
+    void getInvoice_withFields_shouldReturnOnlyThoseFields() throws Exception {
+        Map<String, Object> invoice = new LinkedHashMap<>();
+        invoice.put("id", 1L);
+        invoice.put("totalAmount", new BigDecimal("5000.00"));
+        when(invoiceService.getInvoiceVersion(1L)).thenReturn(2L);
+        when(invoiceService.getInvoiceFields(1L, "totalAmount")).thenReturn(invoice);
+
+        mockMvc.perform(get("/api/invoices/1").param("fields", "totalAmount"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.totalAmount").value(5000.00))
+                .andExpect(jsonPath("$.items").doesNotExist());
+        verify(invoiceService, never()).getInvoice(any());
+    }
+
+    @Test
+    void getAllInvoices_shouldRejectFieldsTogetherWithView() throws Exception {
+        mockMvc.perform(get("/api/invoices")
+                        .param("fields", "invoiceNo")
+                        .param("view", "summary"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchInvoices_shouldRejectUnknownView() throws Exception {
+        mockMvc.perform(get("/api/invoices/search")
+                        .param("invoiceNo", "INV")
+                        .param("view", "compact"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getInvoicePdf_shouldStreamPdf() throws Exception {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNo("INV-001");
+
+        when(invoiceService.getInvoiceEntity(1L)).thenReturn(invoice);
+        renderPdfAs(rendered -> "PDF content");
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/1/pdf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_LENGTH))
+                .andExpect(content().bytes("PDF content".getBytes()));
+    }
+
+    @Test
+    void getInvoiceExcel_shouldStreamWorkbook() throws Exception {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNo("INV-001");
+
+        when(invoiceService.getInvoiceEntity(1L)).thenReturn(invoice);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("XLSX content".getBytes());
+            return null;
+        }).when(excelGenerationService).writeSingleInvoiceExcel(any(Invoice.class), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/1/excel"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("invoice-INV-001.xlsx")))
+                .andExpect(content().bytes("XLSX content".getBytes()));
+    }
+
+    @Test
+    void getInvoicePdf_shouldSendValidatorsAndAnswerNotModifiedWithoutRendering() throws Exception {
         Invoice invoice = new Invoice();
         invoice.setId(1L);
         invoice.setInvoiceNo("INV-001");
+        invoice.setVersion(7);
+        invoice.setUpdatedAt(LocalDateTime.of(2024, 3, 5, 10, 15, 30));
+        List<String> copies = List.of("DUPLICATE COPY", "ORIGINAL COPY");
+        String etag = "\"7-" + InvoiceController.DOCUMENT_LAYOUT_REVISION + "-"
+                + Integer.toHexString(copies.hashCode()) + "\"";
 
-        byte[] pdfBytes = "PDF content".getBytes();
+        when(invoiceService.getInvoiceEntity(1L)).thenReturn(invoice);
+        when(pdfGenerationService.getCopies()).thenReturn(copies);
+        renderPdfAs(rendered -> "PDF content");
+
+        MvcResult result = mockMvc.perform(get("/api/invoices/1/pdf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String lastModified = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotNull(lastModified);
+
+        mockMvc.perform(get("/api/invoices/1/pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/invoices/1/excel").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        verify(pdfGenerationService, times(1)).writeInvoicePdf(any(Invoice.class), any(OutputStream.class));
+        verify(excelGenerationService, never()).writeSingleInvoiceExcel(any(Invoice.class), any(OutputStream.class));
+    }
+
+    @Test
+    void getInvoicePdf_shouldChangeTheETagWithTheCopyLabels() throws Exception {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNo("INV-001");
+        invoice.setVersion(7);
+
+        when(invoiceService.getInvoiceEntity(1L)).thenReturn(invoice);
+        when(pdfGenerationService.getCopies()).thenReturn(List.of("DUPLICATE COPY", "ORIGINAL COPY"));
+        renderPdfAs(rendered -> "PDF content");
+        MvcResult result = mockMvc.perform(get("/api/invoices/1/pdf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String etag = mockMvc.perform(asyncDispatch(result))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(pdfGenerationService.getCopies()).thenReturn(List.of("ORIGINAL COPY", "DUPLICATE COPY", "TRIPLICATE"));
+        mockMvc.perform(get("/api/invoices/1/pdf").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void getInvoicePdf_shouldRenderEachVersionOnce() throws Exception {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNo("INV-001");
+        invoice.setVersion(2);
 
         when(invoiceService.getInvoiceEntity(1L)).thenReturn(invoice);
-        when(pdfGenerationService.generateInvoicePdf(any(Invoice.class))).thenReturn(pdfBytes);
+        renderPdfAs(rendered -> "version " + rendered.getVersion());
+
+        assertEquals("version 2", downloadPdf("/api/invoices/1/pdf"));
+        assertEquals("version 2", downloadPdf("/api/invoices/1/pdf"));
+        verify(pdfGenerationService, times(1)).writeInvoicePdf(any(Invoice.class), any(OutputStream.class));
+
+        invoice.setVersion(3);
+        assertEquals("version 3", downloadPdf("/api/invoices/1/pdf"));
+        verify(pdfGenerationService, times(2)).writeInvoicePdf(any(Invoice.class), any(OutputStream.class));
+    }
+
+    private void renderPdfAs(Function<Invoice, String> content) {
+        doAnswer(invocation -> {
+            String pdf = content.apply(invocation.getArgument(0));
+            invocation.<OutputStream>getArgument(1).write(pdf.getBytes());
+            return null;
+        }).when(pdfGenerationService).writeInvoicePdf(any(Invoice.class), any(OutputStream.class));
+    }
 
-        mockMvc.perform(get("/api/invoices/1/pdf"))
+    private String downloadPdf(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_PDF));
+                .andReturn().getResponse().getContentAsString();
     }
 }
@@ -0,0 +1,133 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.dto.ClientDTO;
+import com.invoice.app.dto.InvoiceDTO;
+import com.invoice.app.dto.InvoiceItemDTO;
+import com.invoice.app.service.ClientSearchIndex;
+import com.invoice.app.service.ClientService;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.InvoiceNumberAllocator;
+import com.invoice.app.service.InvoiceRollupService;
+import com.invoice.app.service.InvoiceService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction: entities written by a transaction only
+ * reach the second-level cache once it commits.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InvoiceService.class, InvoiceRollupService.class, InvoiceNumberAllocator.class, DocumentCache.class,
+        ClientService.class, ClientSearchIndex.class})
+class EntityCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private MonthlyInvoiceRollupRepository rollupRepository;
+
+    @Autowired
+    private InvoiceNumberSequenceRepository sequenceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        clientRepository.deleteAll();
+        rollupRepository.deleteAll();
+        sequenceRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void getInvoice_shouldBeServedFromCacheOnceLoaded() {
+        ClientDTO client = clientService.createClient(client("Acme Freight"));
+        InvoiceDTO created = invoiceService.createInvoice(invoice("C-1", client.getId(), "100.00", "250.00"));
+
+        invoiceService.getInvoice(created.getId());
+        statistics.clear();
+        InvoiceDTO invoice = invoiceService.getInvoice(created.getId());
+        ClientDTO cachedClient = clientService.getClient(client.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, invoice.getItems().size());
+        assertEquals("Acme Freight", cachedClient.getName());
+    }
+
+    @Test
+    void updates_shouldReplaceCachedValues() {
+        ClientDTO client = clientService.createClient(client("Acme Freight"));
+        InvoiceDTO created = invoiceService.createInvoice(invoice("C-2", client.getId(), "100.00", "250.00"));
+        invoiceService.getInvoice(created.getId());
+        clientService.getClient(client.getId());
+
+        InvoiceDTO update = invoiceService.getInvoice(created.getId());
+        update.getItems().get(0).setAmount(new BigDecimal("175.00"));
+        update.getItems().remove(1);
+        update.setRemarks("Corrected");
+        invoiceService.updateInvoice(created.getId(), update);
+        client.setName("Acme Freight Carriers");
+        clientService.updateClient(client.getId(), client);
+
+        InvoiceDTO invoice = invoiceService.getInvoice(created.getId());
+        assertEquals("Corrected", invoice.getRemarks());
+        assertEquals(1, invoice.getItems().size());
+        assertEquals(0, new BigDecimal("175.00").compareTo(invoice.getItems().get(0).getAmount()));
+        assertEquals("Acme Freight Carriers", clientService.getClient(client.getId()).getName());
+    }
+
+    private ClientDTO client(String name) {
+        ClientDTO dto = new ClientDTO();
+        dto.setName(name);
+        return dto;
+    }
+
+    private InvoiceDTO invoice(String invoiceNo, Long partyId, String... amounts) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceNo(invoiceNo);
+        dto.setInvoiceDate("2024-08-01");
+        dto.setPartyId(partyId);
+        dto.setPartyName("Acme Freight");
+        dto.setItems(new ArrayList<>());
+        for (int i = 0; i < amounts.length; i++) {
+            InvoiceItemDTO item = new InvoiceItemDTO();
+            item.setLrNo("LR-" + invoiceNo + "-" + i);
+            item.setAmount(new BigDecimal(amounts[i]));
+            dto.getItems().add(item);
+        }
+        return dto;
+    }
+}
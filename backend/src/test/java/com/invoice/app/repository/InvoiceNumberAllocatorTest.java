@@ -0,0 +1,172 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.service.InvoiceNumberAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction: the allocator reserves blocks in
+ * transactions of its own, which must see committed data.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InvoiceNumberAllocatorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private InvoiceNumberSequenceRepository sequenceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        sequenceRepository.deleteAll();
+        invoiceRepository.deleteAll();
+    }
+
+    @Test
+    void next_shouldContinueAfterHighestExistingNumber() {
+        saveInvoice("INV007");
+        saveInvoice("INV012");
+        saveInvoice("INVOICE-99");
+        saveInvoice("X100");
+
+        InvoiceNumberAllocator allocator = allocator(5, false);
+
+        assertEquals("INV013", allocator.peek(DATE));
+        assertEquals("INV013", allocator.next(DATE));
+        assertEquals("INV014", allocator.next(DATE));
+        assertEquals("INV015", allocator.peek(DATE));
+    }
+
+    @Test
+    void next_shouldReserveBlocksAcrossBackends() {
+        InvoiceNumberAllocator first = allocator(3, false);
+        InvoiceNumberAllocator second = allocator(3, false);
+
+        assertEquals("INV001", first.next(DATE));
+        assertEquals("INV004", second.next(DATE));
+        assertEquals("INV002", first.next(DATE));
+        assertEquals("INV003", first.next(DATE));
+        assertEquals("INV007", first.next(DATE));
+        assertEquals(10, sequenceRepository.findByPrefixAndFiscalYear("INV", "").orElseThrow().getNextValue());
+    }
+
+    @Test
+    void next_shouldNeverHandOutTheSameNumberTwice() throws Exception {
+        List<InvoiceNumberAllocator> backends = List.of(allocator(4, false), allocator(4, false), allocator(1, false));
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Callable<List<String>>> clerks = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                InvoiceNumberAllocator allocator = backends.get(i % backends.size());
+                clerks.add(() -> {
+                    List<String> numbers = new ArrayList<>();
+                    for (int j = 0; j < 25; j++) {
+                        numbers.add(allocator.next(DATE));
+                    }
+                    return numbers;
+                });
+            }
+
+            Set<String> allocated = new HashSet<>();
+            int count = 0;
+            for (Future<List<String>> result : executor.invokeAll(clerks)) {
+                for (String number : result.get()) {
+                    allocated.add(number);
+                    count++;
+                }
+            }
+            assertEquals(150, count);
+            assertEquals(150, allocated.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void next_shouldNotHoldTheLockWhileReserving() throws Exception {
+        InvoiceNumberAllocator allocator = allocator(2, false);
+        assertEquals("INV001", allocator.next(DATE));
+        assertEquals("INV002", allocator.next(DATE));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch rowLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Another backend in the middle of reserving a block
+            TransactionTemplate otherBackend = new TransactionTemplate(transactionManager);
+            executor.submit(() -> otherBackend.executeWithoutResult(status -> {
+                sequenceRepository.findForUpdate("INV", "");
+                rowLocked.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(rowLocked.await(5, TimeUnit.SECONDS));
+            Future<String> waiting = executor.submit(() -> allocator.next(DATE));
+            Thread.sleep(200);
+
+            assertFalse(waiting.isDone());
+            assertEquals("INV003", allocator.peek(DATE));
+
+            release.countDown();
+            assertEquals("INV003", waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void next_shouldRestartNumberingEachFiscalYear() {
+        InvoiceNumberAllocator allocator = allocator(10, true);
+
+        assertEquals("INV/2023-24/001", allocator.next(LocalDate.of(2024, 3, 31)));
+        assertEquals("INV/2024-25/001", allocator.next(LocalDate.of(2024, 4, 1)));
+        assertEquals("INV/2023-24/002", allocator.next(LocalDate.of(2024, 1, 10)));
+        assertEquals("INV/2024-25/002", allocator.next(LocalDate.of(2025, 3, 31)));
+    }
+
+    private InvoiceNumberAllocator allocator(int blockSize, boolean fiscalYearReset) {
+        return new InvoiceNumberAllocator(sequenceRepository, invoiceRepository, transactionManager,
+                "INV", 3, blockSize, fiscalYearReset, 4);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void saveInvoice(String invoiceNo) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo(invoiceNo);
+        invoiceRepository.save(invoice);
+    }
+}
@@ -0,0 +1,360 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.config.GlobalExceptionHandler;
+import com.invoice.app.dto.InvoiceDTO;
+import com.invoice.app.dto.InvoiceItemDTO;
+import com.invoice.app.dto.InvoicePageDTO;
+import com.invoice.app.dto.InvoiceSummaryDTO;
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.InvoiceItem;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.InvoiceNumberAllocator;
+import com.invoice.app.service.InvoiceRollupService;
+import com.invoice.app.service.InvoiceService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({InvoiceService.class, InvoiceRollupService.class, InvoiceNumberAllocator.class, DocumentCache.class})
+class InvoiceRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    private Statistics statistics;
+    private int invoiceCount;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        invoiceCount = 0;
+    }
+
+    @Test
+    void getInvoicePage_shouldUseConstantNumberOfStatements() {
+        seedInvoices(5);
+        long fewInvoicesStatements = countStatements(
+                () -> assertEquals(5, invoiceService.getInvoicePage(null, 100).getInvoices().size()));
+
+        seedInvoices(45);
+        long manyInvoicesStatements = countStatements(
+                () -> assertEquals(50, invoiceService.getInvoicePage(null, 100).getInvoices().size()));
+
+        assertEquals(fewInvoicesStatements, manyInvoicesStatements);
+    }
+
+    @Test
+    void searchInvoices_shouldUseConstantNumberOfStatements() {
+        seedInvoices(5);
+        long fewInvoicesStatements = countStatements(() -> {
+            List<InvoiceDTO> results = invoiceService.searchInvoices(null, "LR", null, 100).getInvoices();
+            assertEquals(5, results.size());
+            assertEquals(3, results.get(0).getItems().size());
+        });
+
+        seedInvoices(45);
+        long manyInvoicesStatements = countStatements(() -> {
+            List<InvoiceDTO> results = invoiceService.searchInvoices(null, "LR", null, 100).getInvoices();
+            assertEquals(50, results.size());
+            assertEquals(3, results.get(0).getItems().size());
+        });
+
+        assertEquals(fewInvoicesStatements, manyInvoicesStatements);
+    }
+
+    @Test
+    void searchInvoiceSummaries_shouldNotLoadEntities() {
+        seedInvoices(20);
+
+        long statements = countStatements(() -> {
+            List<InvoiceSummaryDTO> summaries = invoiceService.searchInvoiceSummaries(null, "LR", null, 10).getInvoices();
+            assertEquals(10, summaries.size());
+            assertEquals("INV20", summaries.get(0).getInvoiceNo());
+            assertEquals("2024-01-21", summaries.get(0).getInvoiceDate());
+            assertEquals(0, new BigDecimal("3000.00").compareTo(summaries.get(0).getTotalAmount()));
+        });
+
+        // One query for the page keys, one for the summary columns
+        assertEquals(2, statements);
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void searchInvoiceFields_shouldReadOnlyTheRequestedColumns() {
+        seedInvoices(20);
+
+        long statements = countStatements(() -> {
+            List<Map<String, Object>> invoices = invoiceService
+                    .searchInvoiceFields(null, "LR", null, 10, "invoiceNo, invoiceDate,partyId,totalAmount").getInvoices();
+            assertEquals(10, invoices.size());
+            assertEquals(List.of("id", "invoiceNo", "invoiceDate", "partyId", "totalAmount"), new ArrayList<>(invoices.get(0).keySet()));
+            assertEquals("INV20", invoices.get(0).get("invoiceNo"));
+            assertEquals("2024-01-21", invoices.get(0).get("invoiceDate"));
+        });
+
+        // One query for the page keys, one for the requested columns
+        assertEquals(2, statements);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getInvoiceFields_shouldReadItemsOnlyWhenRequested() {
+        seedInvoices(1);
+        Long id = invoiceService.getInvoicePage(null, 1).getInvoices().get(0).getId();
+
+        long statements = countStatements(() -> {
+            Map<String, Object> invoice = invoiceService.getInvoiceFields(id, "items");
+            assertEquals(List.of("id", "items"), new ArrayList<>(invoice.keySet()));
+            assertEquals(3, ((List<?>) invoice.get("items")).size());
+        });
+        // The invoice columns, then its items; the invoice entity itself is never loaded
+        assertEquals(2, statements);
+        assertEquals(3, statistics.getEntityLoadCount());
+
+        assertThrows(IllegalArgumentException.class, () -> invoiceService.getInvoiceFields(id, "invoiceNo,colour"));
+        assertThrows(GlobalExceptionHandler.ResourceNotFoundException.class,
+                () -> invoiceService.getInvoiceFields(Long.MAX_VALUE, "invoiceNo"));
+    }
+
+    @Test
+    void getInvoicePage_shouldVisitEveryInvoiceOnceNewestFirst() {
+        seedInvoices(7);
+        Invoice undated = new Invoice();
+        undated.setInvoiceNo("INV-UNDATED");
+        entityManager.persist(undated);
+        entityManager.flush();
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            InvoicePageDTO<InvoiceDTO> page = invoiceService.getInvoicePage(cursor, 3);
+            page.getInvoices().forEach(dto -> seen.add(dto.getInvoiceNo()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("INV7", "INV6", "INV5", "INV4", "INV3", "INV2", "INV1", "INV-UNDATED"), seen);
+    }
+
+    @Test
+    void exportInvoices_shouldVisitEveryInvoiceInChunksWithoutKeepingThem() {
+        seedInvoices(450);
+
+        List<String> seen = new ArrayList<>();
+        long statements = countStatements(() -> invoiceService.exportInvoices(null, null, dto -> {
+            seen.add(dto.getInvoiceNo());
+            // Each chunk is released before its invoices are handed out
+            assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+        }));
+
+        assertEquals(450, seen.size());
+        assertEquals("INV450", seen.get(0));
+        assertEquals("INV1", seen.get(449));
+        // Three chunks of keys and invoices, plus the search for undated invoices after the last
+        assertEquals(7, statements);
+    }
+
+    @Test
+    void searchInvoices_shouldPageThroughMatches() {
+        seedInvoices(5);
+
+        InvoicePageDTO<InvoiceDTO> first = invoiceService.searchInvoices("INV", "lr", null, 2);
+        InvoicePageDTO<InvoiceDTO> second = invoiceService.searchInvoices("INV", "lr", first.getNextCursor(), 2);
+        InvoicePageDTO<InvoiceDTO> last = invoiceService.searchInvoices("INV", "lr", second.getNextCursor(), 2);
+
+        assertEquals(List.of("INV5", "INV4"), invoiceNumbers(first));
+        assertEquals(List.of("INV3", "INV2"), invoiceNumbers(second));
+        assertEquals(List.of("INV1"), invoiceNumbers(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void searchInvoices_shouldMatchWildcardCharactersLiterally() {
+        seedInvoices(3);
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo("INV_SPECIAL");
+        invoice.setInvoiceDate(LocalDate.of(2023, 12, 1));
+        InvoiceItem item = new InvoiceItem();
+        item.setLrNo("LR%100");
+        invoice.addItem(item);
+        entityManager.persist(invoice);
+        entityManager.flush();
+
+        assertEquals(List.of("INV_SPECIAL"), invoiceNumbers(invoiceService.searchInvoices("_", null, null, 10)));
+        assertEquals(List.of("INV_SPECIAL"), invoiceNumbers(invoiceService.searchInvoices(null, "r%1", null, 10)));
+    }
+
+    @Test
+    void createInvoice_shouldBatchItemInserts() {
+        long fewItemsStatements = countStatements(() -> {
+            invoiceService.createInvoice(invoiceWithItems("BATCH-1", 5));
+            entityManager.flush();
+        });
+        long manyItemsStatements = countStatements(() -> {
+            invoiceService.createInvoice(invoiceWithItems("BATCH-2", 40));
+            entityManager.flush();
+        });
+
+        // One extra statement is allowed for refilling the pool of item ids
+        assertTrue(manyItemsStatements <= fewItemsStatements + 1,
+                fewItemsStatements + " statements for 5 items, " + manyItemsStatements + " for 40");
+    }
+
+    @Test
+    void updateInvoice_shouldBatchItemWrites() {
+        InvoiceDTO few = invoiceService.createInvoice(invoiceWithItems("BATCH-1", 5));
+        InvoiceDTO many = invoiceService.createInvoice(invoiceWithItems("BATCH-2", 40));
+        entityManager.flush();
+
+        long fewItemsStatements = countStatements(() -> {
+            invoiceService.updateInvoice(few.getId(), invoiceWithItems("BATCH-1", 5));
+            entityManager.flush();
+        });
+        long manyItemsStatements = countStatements(() -> {
+            invoiceService.updateInvoice(many.getId(), invoiceWithItems("BATCH-2", 40));
+            entityManager.flush();
+        });
+
+        // One extra statement is allowed for refilling the pool of item ids
+        assertTrue(manyItemsStatements <= fewItemsStatements + 1,
+                fewItemsStatements + " statements for 5 items, " + manyItemsStatements + " for 40");
+    }
+
+    @Test
+    void updateInvoice_shouldOnlyWriteTheChangedItem() {
+        InvoiceDTO created = invoiceService.createInvoice(invoiceWithItems("DIFF-1", 100));
+        entityManager.flush();
+        entityManager.clear();
+
+        InvoiceDTO edit = invoiceService.getInvoice(created.getId());
+        edit.getItems().get(42).setLrNo("DIFF-1-LR43X");
+        entityManager.clear();
+
+        long statements = countStatements(() -> {
+            invoiceService.updateInvoice(created.getId(), edit);
+            entityManager.flush();
+        });
+
+        // Load the invoice, load its items, update the one changed row and the invoice's version
+        assertEquals(4, statements);
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+    }
+
+    @Test
+    void updateInvoice_shouldIncrementVersionOnItemEditsAndRejectStaleVersions() {
+        InvoiceDTO created = invoiceService.createInvoice(invoiceWithItems("VER-1", 2));
+        entityManager.flush();
+        entityManager.clear();
+
+        InvoiceDTO edit = invoiceService.getInvoice(created.getId());
+        long loadedVersion = edit.getVersion();
+        edit.getItems().get(1).setLrNo("VER-1-LR2X");
+        entityManager.clear();
+
+        InvoiceDTO updated = invoiceService.updateInvoice(created.getId(), edit, loadedVersion);
+        assertEquals(loadedVersion + 1, updated.getVersion());
+        entityManager.clear();
+
+        assertThrows(GlobalExceptionHandler.PreconditionFailedException.class,
+                () -> invoiceService.updateInvoice(created.getId(), edit, loadedVersion));
+    }
+
+    @Test
+    void updateInvoice_shouldInsertNewItemsAndDeleteMissingOnes() {
+        InvoiceDTO created = invoiceService.createInvoice(invoiceWithItems("DIFF-2", 3));
+        entityManager.flush();
+        entityManager.clear();
+
+        InvoiceDTO edit = invoiceService.getInvoice(created.getId());
+        List<Long> keptIds = List.of(edit.getItems().get(0).getId(), edit.getItems().get(2).getId());
+        edit.getItems().remove(1);
+        InvoiceItemDTO added = new InvoiceItemDTO();
+        added.setLrNo("DIFF-2-LR4");
+        edit.getItems().add(added);
+        entityManager.clear();
+
+        countStatements(() -> {
+            invoiceService.updateInvoice(created.getId(), edit);
+            entityManager.flush();
+        });
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+        // The invoice itself, for its version
+        assertEquals(1, statistics.getEntityUpdateCount());
+
+        entityManager.clear();
+        List<InvoiceItemDTO> items = invoiceService.getInvoice(created.getId()).getItems();
+        assertEquals(3, items.size());
+        assertTrue(items.stream().map(InvoiceItemDTO::getId).toList().containsAll(keptIds));
+        assertTrue(items.stream().anyMatch(item -> "DIFF-2-LR4".equals(item.getLrNo())));
+    }
+
+    private InvoiceDTO invoiceWithItems(String invoiceNo, int itemCount) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceNo(invoiceNo);
+        dto.setInvoiceDate("2024-02-01");
+        dto.setPartyName("Batch Party");
+        List<InvoiceItemDTO> items = new ArrayList<>();
+        for (int i = 1; i <= itemCount; i++) {
+            InvoiceItemDTO item = new InvoiceItemDTO();
+            item.setLrNo(invoiceNo + "-LR" + i);
+            item.setAmount(new BigDecimal("100.00"));
+            items.add(item);
+        }
+        dto.setItems(items);
+        return dto;
+    }
+
+    private List<String> invoiceNumbers(InvoicePageDTO<InvoiceDTO> page) {
+        return page.getInvoices().stream().map(InvoiceDTO::getInvoiceNo).toList();
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedInvoices(int count) {
+        for (int i = 0; i < count; i++) {
+            invoiceCount++;
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceNo("INV" + invoiceCount);
+            invoice.setInvoiceDate(LocalDate.of(2024, 1, 1).plusDays(invoiceCount));
+            invoice.setPartyName("Party " + invoiceCount);
+            invoice.setTotalAmount(new BigDecimal("3000.00"));
+            for (int j = 1; j <= 3; j++) {
+                InvoiceItem item = new InvoiceItem();
+                item.setLrNo("LR" + invoiceCount + "-" + j);
+                item.setAmount(new BigDecimal("1000.00"));
+                invoice.addItem(item);
+            }
+            entityManager.persist(invoice);
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,108 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.dto.InvoiceDTO;
+import com.invoice.app.dto.MonthlyTotalsDTO;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.InvoiceNumberAllocator;
+import com.invoice.app.service.InvoiceRollupService;
+import com.invoice.app.service.InvoiceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction: the rebuild and the save it races with
+ * each commit on their own.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InvoiceService.class, InvoiceRollupService.class, InvoiceNumberAllocator.class, DocumentCache.class})
+class MonthlyInvoiceRollupRebuildTest {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRollupService invoiceRollupService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private MonthlyInvoiceRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        rollupRepository.deleteAll();
+    }
+
+    @Test
+    void rebuild_shouldKeepASaveToTheMonthThatIsUnderWay() throws Exception {
+        invoiceService.createInvoice(invoice("RB-1", "1000.00"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        try {
+            // A save that has applied its delta but not yet committed
+            TransactionTemplate save = new TransactionTemplate(transactionManager);
+            Future<?> saving = executor.submit(() -> save.executeWithoutResult(status -> {
+                invoiceService.createInvoice(invoice("RB-2", "250.00"));
+                saved.countDown();
+                awaitQuietly(commit);
+            }));
+            assertTrue(saved.await(5, TimeUnit.SECONDS));
+
+            Future<Integer> rebuilding = executor.submit(invoiceRollupService::rebuild);
+            Thread.sleep(200);
+            assertFalse(rebuilding.isDone());
+
+            commit.countDown();
+            saving.get(5, TimeUnit.SECONDS);
+            rebuilding.get(5, TimeUnit.SECONDS);
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+
+        MonthlyTotalsDTO totals = invoiceRollupService.getMonthlyTotals(2024, 9);
+        assertEquals(2, totals.getTotalInvoices());
+        assertEquals(0, new BigDecimal("1250.00").compareTo(totals.getTotalAmount()));
+        assertEquals(2, totals.getParties().get(0).getTotalInvoices());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private InvoiceDTO invoice(String invoiceNo, String total) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceNo(invoiceNo);
+        dto.setInvoiceDate("2024-09-10");
+        dto.setPartyName("Acme Freight");
+        dto.setTotalAmount(new BigDecimal(total));
+        return dto;
+    }
+}
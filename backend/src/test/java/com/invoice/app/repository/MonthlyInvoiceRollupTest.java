@@ -0,0 +1,181 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.dto.InvoiceDTO;
+import com.invoice.app.dto.InvoiceRangeVersion;
+import com.invoice.app.dto.MonthlyTotalsDTO;
+import com.invoice.app.dto.PartyTotalsDTO;
+import com.invoice.app.entity.MonthlyInvoiceRollup;
+import com.invoice.app.service.DocumentCache;
+import com.invoice.app.service.InvoiceNumberAllocator;
+import com.invoice.app.service.InvoiceRollupService;
+import com.invoice.app.service.InvoiceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({InvoiceService.class, InvoiceRollupService.class, InvoiceNumberAllocator.class, DocumentCache.class})
+class MonthlyInvoiceRollupTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRollupService invoiceRollupService;
+
+    @Autowired
+    private MonthlyInvoiceRollupRepository rollupRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    void createAndUpdate_shouldKeepMonthlyTotalsCurrent() {
+        invoiceService.createInvoice(invoice("R-1", "2024-03-05", "Acme Freight", "1000.00", "50.00"));
+        invoiceService.createInvoice(invoice("R-2", "2024-03-20", "Acme Freight", "2500.00", "0.00"));
+        InvoiceDTO moved = invoiceService.createInvoice(invoice("R-3", "2024-03-21", "Bharat Movers", "700.00", "25.00"));
+        invoiceService.createInvoice(invoice("R-4", "2024-03-22", null, "300.00", "0.00"));
+        invoiceService.createInvoice(invoice("R-5", null, "Acme Freight", "9999.00", "0.00"));
+
+        entityManager.flush();
+        entityManager.clear();
+        MonthlyTotalsDTO march = invoiceRollupService.getMonthlyTotals(2024, 3);
+        assertEquals(4, march.getTotalInvoices());
+        assertEquals(0, new BigDecimal("4500.00").compareTo(march.getTotalAmount()));
+        assertEquals(0, new BigDecimal("75.00").compareTo(march.getHaltingCharges()));
+        assertEquals(List.of("Acme Freight", "Bharat Movers"), partyNames(march));
+
+        // Move an invoice to another month and party
+        InvoiceDTO update = invoice("R-3", "2024-04-02", "Chola Logistics", "800.00", "25.00");
+        invoiceService.updateInvoice(moved.getId(), update);
+
+        // The rollup is changed with bulk updates; read it back as a new request would
+        entityManager.flush();
+        entityManager.clear();
+        march = invoiceRollupService.getMonthlyTotals(2024, 3);
+        MonthlyTotalsDTO april = invoiceRollupService.getMonthlyTotals(2024, 4);
+        assertEquals(3, march.getTotalInvoices());
+        assertEquals(0, new BigDecimal("3800.00").compareTo(march.getTotalAmount()));
+        assertEquals(List.of("Acme Freight"), partyNames(march));
+        assertEquals(1, april.getTotalInvoices());
+        assertEquals(0, new BigDecimal("800.00").compareTo(april.getTotalAmount()));
+        assertEquals(List.of("Chola Logistics"), partyNames(april));
+    }
+
+    @Test
+    void findVersionOfDateRange_shouldChangeWithEveryEditInTheMonth() {
+        LocalDate july = LocalDate.of(2024, 7, 1);
+        Set<InvoiceRangeVersion> seen = new HashSet<>();
+        assertTrue(seen.add(invoiceRepository.findVersionOfDateRange(july, july.plusMonths(1))));
+
+        InvoiceDTO first = invoiceService.createInvoice(invoice("V-1", "2024-07-10", "Acme Freight", "100.00", "0.00"));
+        invoiceService.createInvoice(invoice("V-2", "2024-07-11", "Acme Freight", "200.00", "0.00"));
+        assertTrue(seen.add(invoiceRepository.findVersionOfDateRange(july, july.plusMonths(1))));
+
+        // An address is on the statement but not in the monthly totals
+        InvoiceDTO edit = invoice("V-1", "2024-07-10", "Acme Freight", "100.00", "0.00");
+        edit.setPartyAddress("12 Harbour Road");
+        invoiceService.updateInvoice(first.getId(), edit);
+        InvoiceRangeVersion edited = invoiceRepository.findVersionOfDateRange(july, july.plusMonths(1));
+        assertTrue(seen.add(edited));
+        assertEquals(2, edited.getInvoiceCount());
+
+        invoiceService.updateInvoice(first.getId(), invoice("V-1", "2024-08-01", "Acme Freight", "100.00", "0.00"));
+        InvoiceRangeVersion movedOut = invoiceRepository.findVersionOfDateRange(july, july.plusMonths(1));
+        assertTrue(seen.add(movedOut));
+        assertEquals(1, movedOut.getInvoiceCount());
+    }
+
+    @Test
+    void insertIfAbsent_shouldCreateTheRowOnceAndKeepItsTotals() {
+        rollupRepository.insertIfAbsent(2024, 5, "Acme Freight");
+        rollupRepository.increment(2024, 5, "Acme Freight", 1, new BigDecimal("100.00"),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        rollupRepository.insertIfAbsent(2024, 5, "Acme Freight");
+        entityManager.clear();
+
+        List<MonthlyInvoiceRollup> rows = rollupRepository.findPartyRollups(2024, 5);
+        assertEquals(1, rows.size());
+        assertEquals(1, rows.get(0).getInvoiceCount());
+        assertEquals(0, new BigDecimal("100.00").compareTo(rows.get(0).getTotalAmount()));
+    }
+
+    @Test
+    void rebuild_shouldMatchIncrementalTotals() {
+        invoiceService.createInvoice(invoice("R-10", "2024-05-01", "Acme Freight", "1200.00", "10.00"));
+        invoiceService.createInvoice(invoice("R-11", "2024-05-31", "acme freight ", "300.00", "0.00"));
+        InvoiceDTO edited = invoiceService.createInvoice(invoice("R-12", "2024-06-15", "Bharat Movers", "450.00", "5.00"));
+        invoiceService.updateInvoice(edited.getId(), invoice("R-12", "2024-06-15", "Bharat Movers", "650.00", "5.00"));
+        entityManager.flush();
+
+        List<String> incremental = snapshot();
+        invoiceRollupService.rebuild();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(incremental, snapshot());
+    }
+
+    @Test
+    void rebuild_shouldDropPartiesAndMonthsThatNoLongerHaveInvoices() {
+        invoiceService.createInvoice(invoice("R-20", "2024-07-01", "Acme Freight", "100.00", "0.00"));
+        rollupRepository.insertIfAbsent(2024, 7, "Gone Carriers");
+        rollupRepository.increment(2024, 7, "Gone Carriers", 1, new BigDecimal("40.00"),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        rollupRepository.insertIfAbsent(2023, 1, MonthlyInvoiceRollup.MONTH_TOTAL);
+        rollupRepository.increment(2023, 1, MonthlyInvoiceRollup.MONTH_TOTAL, 2, new BigDecimal("90.00"),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        entityManager.flush();
+        entityManager.clear();
+
+        // The total and Acme Freight rows of July 2024, and the emptied total of January 2023
+        assertEquals(3, invoiceRollupService.rebuild());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of("Acme Freight"), partyNames(invoiceRollupService.getMonthlyTotals(2024, 7)));
+        assertEquals(1, invoiceRollupService.getMonthlyTotals(2024, 7).getTotalInvoices());
+        assertEquals(0, invoiceRollupService.getMonthlyTotals(2023, 1).getTotalInvoices());
+    }
+
+    private List<String> snapshot() {
+        List<String> rows = new ArrayList<>();
+        rollupRepository.findAll().stream()
+                .filter(row -> row.getInvoiceCount() > 0)
+                .sorted(Comparator.comparing(MonthlyInvoiceRollup::getYear)
+                        .thenComparing(MonthlyInvoiceRollup::getMonth)
+                        .thenComparing(MonthlyInvoiceRollup::getPartyName))
+                .forEach(row -> rows.add(row.getYear() + "-" + row.getMonth() + " [" + row.getPartyName() + "] "
+                        + row.getInvoiceCount() + " " + row.getTotalAmount().stripTrailingZeros().toPlainString()
+                        + " " + row.getHaltingCharges().stripTrailingZeros().toPlainString()));
+        return rows;
+    }
+
+    private List<String> partyNames(MonthlyTotalsDTO totals) {
+        return totals.getParties().stream().map(PartyTotalsDTO::getPartyName).toList();
+    }
+
+    private InvoiceDTO invoice(String invoiceNo, String date, String partyName, String total, String halting) {
+        InvoiceDTO dto = new InvoiceDTO();
+        dto.setInvoiceNo(invoiceNo);
+        dto.setInvoiceDate(date);
+        dto.setPartyName(partyName);
+        dto.setTotalAmount(new BigDecimal(total));
+        dto.setHaltingCharges(new BigDecimal(halting));
+        return dto;
+    }
+}
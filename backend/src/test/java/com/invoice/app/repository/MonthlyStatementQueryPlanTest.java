@@ -0,0 +1,78 @@
+package com.invoice.app.repository;
+
+import com.invoice.app.entity.Invoice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the monthly statement filter on a seeded invoices table: the old
+ * YEAR()/MONTH() predicate against the half-open date range used by
+ * {@link InvoiceRepository#findByYearAndMonth(int, int)}. Only the range
+ * predicate may use an index.
+ */
+@DataJpaTest
+class MonthlyStatementQueryPlanTest {
+
+    private static final int INVOICES = 2_000;
+
+    private static final String FUNCTION_FILTER = "SELECT * FROM invoices " +
+            "WHERE EXTRACT(YEAR FROM invoice_date) = 2024 AND EXTRACT(MONTH FROM invoice_date) = 3";
+    private static final String RANGE_FILTER = "SELECT * FROM invoices " +
+            "WHERE invoice_date >= DATE '2024-03-01' AND invoice_date < DATE '2024-04-01'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @BeforeEach
+    void seed() {
+        List<Object[]> rows = new ArrayList<>(INVOICES);
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < INVOICES; i++) {
+            rows.add(new Object[]{1_000_000L + i, "PLAN" + i, Date.valueOf(first.plusDays(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO invoices (id, invoice_no, invoice_date) VALUES (?, ?, ?)", rows);
+    }
+
+    @Test
+    void dateRangeQuery_shouldUseInvoiceDateIndex() {
+        String functionPlan = explain(FUNCTION_FILTER);
+        String rangePlan = explain(RANGE_FILTER);
+
+        assertTrue(functionPlan.contains("tableScan"), functionPlan);
+        assertFalse(rangePlan.contains("tableScan"), rangePlan);
+        assertTrue(rangePlan.contains("IDX_INVOICES_"), rangePlan);
+        assertEquals(jdbcTemplate.queryForList(FUNCTION_FILTER).size(), jdbcTemplate.queryForList(RANGE_FILTER).size());
+    }
+
+    @Test
+    void findByYearAndMonth_shouldReturnOnlyInvoicesOfThatMonth() {
+        entityManager.clear();
+
+        List<Invoice> invoices = invoiceRepository.findByYearAndMonth(2024, 3);
+
+        assertFalse(invoices.isEmpty());
+        assertTrue(invoices.stream().allMatch(invoice -> invoice.getInvoiceDate().getYear() == 2024
+                && invoice.getInvoiceDate().getMonthValue() == 3));
+        assertEquals(jdbcTemplate.queryForList(RANGE_FILTER).size(), invoices.size());
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
@@ -0,0 +1,102 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.ClientDTO;
+import com.invoice.app.entity.Client;
+import com.invoice.app.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientSearchIndexTest {
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @InjectMocks
+    private ClientSearchIndex clientSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(clientRepository.findAll()).thenReturn(Arrays.asList(
+                new Client(1L, "Global Traders", "12 Anna Salai, Chennai", "33ABCDE1234F1Z5", null, null, 0L),
+                new Client(2L, "Chennai Freight Movers", "Guindy", "33XYZAB9876K1Z2", null, null, 0L),
+                new Client(3L, "Madras Cements", "Chennai Port Road", null, null, null, 0L),
+                new Client(4L, "Chen Logistics", "Bangalore", null, null, null, 0L)
+        ));
+        clientSearchIndex.load();
+    }
+
+    @Test
+    void search_shouldRankNameMatchesBeforeAddressMatches() {
+        List<ClientDTO> results = clientSearchIndex.search("chen", 10);
+
+        assertEquals(List.of(4L, 2L, 1L, 3L), ids(results));
+    }
+
+    @Test
+    void search_shouldMatchSubstringsOfAnyField() {
+        assertEquals(List.of(2L), ids(clientSearchIndex.search("freight", 10)));
+        assertEquals(List.of(1L), ids(clientSearchIndex.search("abcde", 10)));
+        assertEquals(List.of(3L), ids(clientSearchIndex.search("port ro", 10)));
+        assertTrue(clientSearchIndex.search("kolkata", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldMatchSubstringsForShortQueries() {
+        assertEquals(List.of(3L), ids(clientSearchIndex.search("Ma", 10)));
+        assertEquals(List.of(1L), ids(clientSearchIndex.search("g", 1)));
+        assertEquals(List.of(2L, 1L, 3L), ids(clientSearchIndex.search("ai", 10)));
+    }
+
+    @Test
+    void search_shouldHonourLimit() {
+        assertEquals(List.of(4L, 2L), ids(clientSearchIndex.search("chen", 2)));
+    }
+
+    @Test
+    void put_shouldReplacePreviousVersionOfClient() {
+        clientSearchIndex.put(new ClientDTO(4L, "Kaveri Logistics", "Bangalore", null, null, null, null));
+        clientSearchIndex.put(new ClientDTO(5L, "Chennai Roadways", null, null, null, null, null));
+
+        assertEquals(List.of(5L, 2L, 1L, 3L), ids(clientSearchIndex.search("chen", 10)));
+        assertEquals(List.of(4L), ids(clientSearchIndex.search("kaveri", 10)));
+    }
+
+    @Test
+    void refresh_shouldReloadOnlyNewAndChangedClients() {
+        clientSearchIndex.put(new ClientDTO(1L, "Global Traders Pvt Ltd", "12 Anna Salai, Chennai", null, null, null, 2L));
+        when(clientRepository.findAllFields(List.of("id", "version"))).thenReturn(List.of(
+                Map.of("id", 1L, "version", 1L),
+                Map.of("id", 2L, "version", 1L),
+                Map.of("id", 3L, "version", 0L),
+                Map.of("id", 4L, "version", 0L),
+                Map.of("id", 5L, "version", 0L)
+        ));
+        when(clientRepository.findAllById(List.of(1L, 2L, 5L))).thenReturn(List.of(
+                new Client(1L, "Global Traders", "12 Anna Salai, Chennai", null, null, null, 1L),
+                new Client(2L, "Kaveri Freight Movers", "Guindy", null, null, null, 1L),
+                new Client(5L, "Chennai Roadways", null, null, null, null, 0L)
+        ));
+
+        clientSearchIndex.refresh();
+
+        assertEquals(List.of(4L, 5L, 3L, 1L), ids(clientSearchIndex.search("chen", 10)));
+        assertEquals(List.of(2L), ids(clientSearchIndex.search("kaveri", 10)));
+        // The refresh read an older version of client 1 than the one indexed
+        assertEquals(List.of(1L), ids(clientSearchIndex.search("pvt", 10)));
+    }
+
+    private List<Long> ids(List<ClientDTO> clients) {
+        return clients.stream().map(ClientDTO::getId).toList();
+    }
+}
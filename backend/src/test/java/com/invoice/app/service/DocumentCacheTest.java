@@ -0,0 +1,112 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.DocumentCacheStatsDTO;
+import com.invoice.app.service.DocumentCache.DocumentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    void write_shouldRenderOncePerVersion() throws Exception {
+        DocumentCache cache = new DocumentCache(DataSize.ofMegabytes(1));
+
+        byte[] first = write(cache, DocumentType.INVOICE_PDF, 1L, 3L, 100);
+        assertArrayEquals(first, write(cache, DocumentType.INVOICE_PDF, 1L, 3L, 100));
+        write(cache, DocumentType.INVOICE_EXCEL, 1L, 3L, 100);
+        write(cache, DocumentType.INVOICE_PDF, 1L, 4L, 100);
+
+        assertEquals(3, renders.get());
+        DocumentCacheStatsDTO stats = cache.getStatistics();
+        assertEquals(3, stats.getDocumentCount());
+        assertEquals(300, stats.getResidentBytes());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+        assertEquals(0.25, stats.getHitRatio(), 0.001);
+    }
+
+    @Test
+    void write_shouldEvictToStayWithinTheSizeLimit() throws Exception {
+        DocumentCache cache = new DocumentCache(DataSize.ofKilobytes(64));
+
+        for (long id = 1; id <= 40; id++) {
+            write(cache, DocumentType.INVOICE_PDF, id, 0L, 4096);
+        }
+
+        DocumentCacheStatsDTO stats = cache.getStatistics();
+        assertEquals(65536, stats.getMaxBytes());
+        assertTrue(stats.getResidentBytes() <= 65536, "resident " + stats.getResidentBytes());
+        assertTrue(stats.getEvictionCount() >= 24, "evicted " + stats.getEvictionCount());
+    }
+
+    @Test
+    void write_shouldStreamButNotKeepLargeDocuments() throws Exception {
+        DocumentCache cache = new DocumentCache(DataSize.ofKilobytes(64));
+
+        // More than an eighth of the cache
+        byte[] large = write(cache, DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.of(2024, 8), "v1", 9000);
+        assertEquals(9000, large.length);
+        write(cache, DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.of(2024, 8), "v1", 9000);
+
+        assertEquals(2, renders.get());
+        assertEquals(0, cache.getStatistics().getDocumentCount());
+    }
+
+    @Test
+    void invalidate_shouldDropEveryVersionOfTheDocument() throws Exception {
+        DocumentCache cache = new DocumentCache(DataSize.ofMegabytes(1));
+        write(cache, DocumentType.INVOICE_PDF, 1L, 1L, 10);
+        write(cache, DocumentType.INVOICE_EXCEL, 1L, 1L, 10);
+        write(cache, DocumentType.INVOICE_PDF, 2L, 1L, 10);
+        write(cache, DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.of(2024, 8), "v1", 10);
+        write(cache, DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.of(2024, 9), "v1", 10);
+
+        cache.invalidateInvoice(1L);
+        cache.invalidateStatement(LocalDate.of(2024, 8, 31));
+        cache.invalidateStatement(null);
+
+        assertEquals(2, cache.getStatistics().getDocumentCount());
+        write(cache, DocumentType.INVOICE_PDF, 2L, 1L, 10);
+        write(cache, DocumentType.MONTHLY_STATEMENT_PDF, YearMonth.of(2024, 9), "v1", 10);
+        assertEquals(5, renders.get());
+    }
+
+    @Test
+    void write_shouldAlwaysRenderWhenTurnedOff() throws Exception {
+        DocumentCache cache = new DocumentCache(DataSize.ofBytes(0));
+
+        write(cache, DocumentType.INVOICE_PDF, 1L, 1L, 10);
+        write(cache, DocumentType.INVOICE_PDF, 1L, 1L, 10);
+
+        assertEquals(2, renders.get());
+        assertEquals(0, cache.getStatistics().getDocumentCount());
+    }
+
+    /**
+     * Writes a document through the cache; a rendering is {@code size} bytes
+     * of its render number.
+     */
+    private byte[] write(DocumentCache cache, DocumentType type, Object id, Object version, int size)
+            throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        cache.write(type, id, version, out -> {
+            byte[] document = new byte[size];
+            Arrays.fill(document, (byte) renders.incrementAndGet());
+            // In pieces, as the renderers write
+            for (int offset = 0; offset < size; offset += 1000) {
+                out.write(document, offset, Math.min(1000, size - offset));
+            }
+        }, response);
+        return response.toByteArray();
+    }
+}
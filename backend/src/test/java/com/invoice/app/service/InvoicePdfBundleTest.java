@@ -0,0 +1,158 @@
+package com.invoice.app.service;
+
+import com.invoice.app.entity.Client;
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.InvoiceItem;
+import com.lowagie.text.pdf.PdfReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "invoice.documents.render-threads=3")
+@Import({InvoicePdfBundleService.class, PdfGenerationService.class})
+class InvoicePdfBundleTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InvoicePdfBundleService bundleService;
+
+    @Test
+    void findInvoiceIds_shouldFilterByDateRangeAndPartyOldestFirst() {
+        Client acme = client("Acme Freight");
+        Client other = client("Other Carriers");
+        Invoice julyAcme = invoice("INV1", LocalDate.of(2024, 7, 31), acme);
+        Invoice augustAcme = invoice("INV2", LocalDate.of(2024, 8, 1), acme);
+        Invoice augustOther = invoice("INV3", LocalDate.of(2024, 8, 15), other);
+        Invoice lastOfAugust = invoice("INV4", LocalDate.of(2024, 8, 31), acme);
+        invoice("INV5", LocalDate.of(2024, 9, 1), acme);
+        entityManager.flush();
+
+        LocalDate from = LocalDate.of(2024, 8, 1);
+        LocalDate to = LocalDate.of(2024, 8, 31);
+        assertEquals(List.of(augustAcme.getId(), augustOther.getId(), lastOfAugust.getId()),
+                bundleService.findInvoiceIds(from, to, null));
+        assertEquals(List.of(augustAcme.getId(), lastOfAugust.getId()),
+                bundleService.findInvoiceIds(from, to, acme.getId()));
+        assertEquals(List.of(julyAcme.getId(), augustAcme.getId()),
+                bundleService.findInvoiceIds(null, from, acme.getId()));
+    }
+
+    @Test
+    void findExistingInvoiceIds_shouldDropUnknownIdsAndKeepTheOrder() {
+        Invoice first = invoice("INV1", LocalDate.of(2024, 8, 1), null);
+        Invoice second = invoice("INV2", LocalDate.of(2024, 8, 2), null);
+        entityManager.flush();
+
+        long unknown = second.getId() + 1000;
+        assertEquals(List.of(second.getId(), first.getId()),
+                bundleService.findExistingInvoiceIds(List.of(second.getId(), unknown, first.getId())));
+        assertEquals(List.of(), bundleService.findExistingInvoiceIds(List.of(unknown)));
+    }
+
+    @Test
+    void renderInvoicePdfs_shouldHandOutDocumentsInOrder() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        // More than one load chunk (50), and more than the render threads run ahead
+        for (int i = 1; i <= 60; i++) {
+            ids.add(invoice("INV" + i, LocalDate.of(2024, 8, 1).plusDays(i % 28), null).getId());
+        }
+        // Deleted after it was selected
+        ids.add(1, Long.MAX_VALUE);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> seen = new ArrayList<>();
+        bundleService.renderInvoicePdfs(ids, (invoice, pdf) -> {
+            assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+            assertEquals(2, invoice.getItems().size());
+            seen.add(invoice.getInvoiceNo());
+        });
+
+        assertEquals(60, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals("INV" + (i + 1), seen.get(i));
+        }
+    }
+
+    @Test
+    void renderInvoicePdfs_shouldStopWhenTheConsumerFails() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            ids.add(invoice("INV" + i, LocalDate.of(2024, 8, i), null).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> seen = new ArrayList<>();
+        assertThrows(IOException.class, () -> bundleService.renderInvoicePdfs(ids, (invoice, pdf) -> {
+            seen.add(invoice.getInvoiceNo());
+            throw new IOException("Client went away");
+        }));
+        assertEquals(List.of("INV1"), seen);
+    }
+
+    @Test
+    void mergeInvoicePdfs_shouldCombineEveryPageAndShareResources() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(invoice("INV" + i, LocalDate.of(2024, 8, i), null).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        long separateSize = 0;
+        int separatePages = 0;
+        List<byte[]> separate = new ArrayList<>();
+        bundleService.renderInvoicePdfs(ids, (invoice, pdf) -> separate.add(pdf));
+        for (byte[] pdf : separate) {
+            separateSize += pdf.length;
+            separatePages += new PdfReader(pdf).getNumberOfPages();
+        }
+
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        bundleService.mergeInvoicePdfs(ids, merged);
+
+        PdfReader reader = new PdfReader(merged.toByteArray());
+        // Both copies of every invoice
+        assertEquals(10, reader.getNumberOfPages());
+        assertEquals(separatePages, reader.getNumberOfPages());
+        assertTrue(merged.size() < separateSize,
+                "merged " + merged.size() + " bytes, separate files " + separateSize + " bytes");
+    }
+
+    private Client client(String name) {
+        Client client = new Client();
+        client.setName(name);
+        return entityManager.persist(client);
+    }
+
+    private Invoice invoice(String invoiceNo, LocalDate invoiceDate, Client party) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo(invoiceNo);
+        invoice.setInvoiceDate(invoiceDate);
+        invoice.setParty(party);
+        invoice.setPartyName(party != null ? party.getName() : "Walk-in");
+        invoice.setTotalAmount(new BigDecimal("2000.00"));
+        for (int j = 1; j <= 2; j++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setLrNo("LR-" + invoiceNo + "-" + j);
+            item.setLrDate(invoiceDate);
+            item.setAmount(new BigDecimal("1000.00"));
+            invoice.addItem(item);
+        }
+        return entityManager.persist(invoice);
+    }
+}
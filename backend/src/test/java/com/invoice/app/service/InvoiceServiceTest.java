@@ -1,8 +1,10 @@
 package com.invoice.app.service;
 
 import com.invoice.app.config.GlobalExceptionHandler;
+import com.invoice.app.dto.InvoiceCursor;
 import com.invoice.app.dto.InvoiceDTO;
 import com.invoice.app.dto.InvoiceItemDTO;
+import com.invoice.app.dto.InvoicePageDTO;
 import com.invoice.app.dto.MonthlyStatementDTO;
 import com.invoice.app.entity.Client;
 import com.invoice.app.entity.Invoice;
@@ -15,6 +17,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -34,6 +39,18 @@ class InvoiceServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private InvoiceRollupService invoiceRollupService;
+
+    @Mock
+    private InvoiceNumberAllocator invoiceNumberAllocator;
+
+    @Mock
+    private DocumentCache documentCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private InvoiceService invoiceService;
 
@@ -66,6 +83,34 @@ class InvoiceServiceTest {
         assertEquals("INV-001", result.getInvoiceNo());
         assertEquals("Test Client", result.getPartyName());
         verify(invoiceRepository, times(1)).save(any(Invoice.class));
+        verify(invoiceRollupService).recordCreated(testInvoice);
+        verify(documentCache).invalidateStatement(LocalDate.of(2024, 1, 15));
+    }
+
+    @Test
+    void updateInvoice_shouldDropCachedDocumentsOfTheInvoiceAndBothMonths() {
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(testInvoice));
+        when(invoiceRepository.saveAndFlush(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        testInvoiceDTO.setInvoiceDate("2024-02-01");
+
+        invoiceService.updateInvoice(1L, testInvoiceDTO);
+
+        verify(documentCache).invalidateInvoice(1L);
+        verify(documentCache).invalidateStatement(LocalDate.of(2024, 1, 15));
+        verify(documentCache).invalidateStatement(LocalDate.of(2024, 2, 1));
+    }
+
+    @Test
+    void createInvoice_shouldAssignNextFreeNumberWhenBlank() {
+        testInvoiceDTO.setInvoiceNo(" ");
+        when(invoiceNumberAllocator.next(LocalDate.of(2024, 1, 15))).thenReturn("INV005", "INV006");
+        when(invoiceRepository.existsByInvoiceNo("INV005")).thenReturn(true);
+        when(invoiceRepository.existsByInvoiceNo("INV006")).thenReturn(false);
+        when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        InvoiceDTO result = invoiceService.createInvoice(testInvoiceDTO);
+
+        assertEquals("INV006", result.getInvoiceNo());
     }
 
     @Test
@@ -91,14 +136,45 @@ class InvoiceServiceTest {
         Invoice invoice2 = new Invoice();
         invoice2.setId(2L);
         invoice2.setInvoiceNo("INV-002");
+        invoice2.setInvoiceDate(LocalDate.of(2024, 1, 10));
 
-        when(invoiceRepository.searchInvoices(eq("INV"), isNull()))
-                .thenReturn(Arrays.asList(testInvoice, invoice2));
+        when(invoiceRepository.searchDatedPageKeys(eq("INV"), isNull(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(
+                        new InvoiceCursor(LocalDate.of(2024, 1, 15), 1L),
+                        new InvoiceCursor(LocalDate.of(2024, 1, 10), 2L)));
+        when(invoiceRepository.findByIdIn(Arrays.asList(1L, 2L)))
+                .thenReturn(Arrays.asList(invoice2, testInvoice));
 
-        List<InvoiceDTO> results = invoiceService.searchInvoices("INV", null);
+        InvoicePageDTO<InvoiceDTO> results = invoiceService.searchInvoices("INV", null, null, null);
 
         assertNotNull(results);
-        assertEquals(2, results.size());
+        assertEquals(2, results.getInvoices().size());
+        assertEquals("INV-001", results.getInvoices().get(0).getInvoiceNo());
+        assertNull(results.getNextCursor());
+    }
+
+    @Test
+    void getInvoicePage_shouldReturnCursorWhenMoreInvoicesExist() {
+        Invoice invoice2 = new Invoice();
+        invoice2.setId(2L);
+        invoice2.setInvoiceNo("INV-002");
+
+        when(invoiceRepository.findDatedPageKeys(PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(
+                        new InvoiceCursor(LocalDate.of(2024, 1, 15), 1L),
+                        new InvoiceCursor(LocalDate.of(2024, 1, 10), 2L)));
+        when(invoiceRepository.findByIdIn(List.of(1L))).thenReturn(List.of(testInvoice));
+
+        InvoicePageDTO<InvoiceDTO> page = invoiceService.getInvoicePage(null, 1);
+
+        assertEquals(1, page.getInvoices().size());
+        assertEquals(new InvoiceCursor(LocalDate.of(2024, 1, 15), 1L), InvoiceCursor.decode(page.getNextCursor()));
+        verify(invoiceRepository, never()).findUndatedPageKeysAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getInvoicePage_shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> invoiceService.getInvoicePage("not-a-cursor", null));
     }
 
     @Test
@@ -124,5 +200,6 @@ class InvoiceServiceTest {
         assertEquals("January", result.getMonthName());
         assertEquals(2, result.getTotalInvoices());
         assertEquals(new BigDecimal("5000.00"), result.getTotalAmount());
+        assertEquals(2, result.getInvoices().size());
     }
 }
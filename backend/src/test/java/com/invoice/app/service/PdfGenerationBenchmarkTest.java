@@ -0,0 +1,72 @@
+package com.invoice.app.service;
+
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.InvoiceItem;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Renders the same three-item invoice repeatedly and prints the time and
+ * memory allocated per invoice PDF, measured on the rendering thread. Run
+ * with {@code mvn test -Pbenchmark}; PdfGenerationServiceTest checks the
+ * content.
+ */
+@Tag("benchmark")
+class PdfGenerationBenchmarkTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 500;
+
+    private final PdfGenerationService pdfGenerationService = new PdfGenerationService(new String[]{"DUPLICATE COPY", "ORIGINAL COPY"});
+
+    @Test
+    void generateInvoicePdf_perInvoiceTimeAndAllocation() throws Exception {
+        Invoice invoice = invoice();
+        for (int i = 0; i < WARMUP; i++) {
+            pdfGenerationService.generateInvoicePdf(invoice);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        byte[] pdf = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            pdf = pdfGenerationService.generateInvoicePdf(invoice);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        System.out.printf("%d invoice PDFs: %.3f ms and %d KB allocated per invoice, %d bytes each%n",
+                ITERATIONS, nanos / 1e6 / ITERATIONS, allocated / 1024 / ITERATIONS, pdf.length);
+    }
+
+    private Invoice invoice() {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNo("INV-BENCH");
+        invoice.setInvoiceDate(LocalDate.of(2024, 8, 1));
+        invoice.setPartyName("Acme Freight Carriers");
+        invoice.setPartyAddress("12 Harbour Road, Chennai 600 001");
+        invoice.setPartyGst("33ABCDE1234F1Z5");
+        invoice.setTotalAmount(new BigDecimal("45000.00"));
+        invoice.setAmountInWords("Forty five thousand only");
+        for (int i = 1; i <= 3; i++) {
+            InvoiceItem item = new InvoiceItem();
+            item.setLrNo("LR-100" + i);
+            item.setLrDate(LocalDate.of(2024, 7, 28));
+            item.setFromLocation("Chennai");
+            item.setToLocation("Bengaluru");
+            item.setGoodsDescription("Auto parts");
+            item.setPackageType("Cartons");
+            item.setVehicleNumber("TN01AB100" + i);
+            item.setVehicleType("Container");
+            item.setAmount(new BigDecimal("15000.00"));
+            invoice.addItem(item);
+        }
+        return invoice;
+    }
+}
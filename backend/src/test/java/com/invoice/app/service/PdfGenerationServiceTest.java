@@ -0,0 +1,74 @@
+package com.invoice.app.service;
+
+import com.invoice.app.entity.Invoice;
+import com.invoice.app.entity.InvoiceItem;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfGenerationServiceTest {
+
+    @Test
+    void generateInvoicePdf_shouldLabelEachConfiguredCopy() throws Exception {
+        PdfGenerationService service = new PdfGenerationService(
+                new String[]{"ORIGINAL FOR RECIPIENT", " DUPLICATE FOR TRANSPORTER ", "TRIPLICATE FOR SUPPLIER"});
+
+        PdfReader reader = new PdfReader(service.generateInvoicePdf(invoice()));
+
+        assertEquals(3, reader.getNumberOfPages());
+        PdfTextExtractor text = new PdfTextExtractor(reader);
+        String[] labels = {"ORIGINAL FOR RECIPIENT", "DUPLICATE FOR TRANSPORTER", "TRIPLICATE FOR SUPPLIER"};
+        for (int page = 1; page <= 3; page++) {
+            String pageText = text.getTextFromPage(page);
+            for (int label = 0; label < labels.length; label++) {
+                assertEquals(label == page - 1, pageText.contains(labels[label]), pageText);
+            }
+            assertTrue(pageText.contains("INV-7"), pageText);
+            assertTrue(pageText.contains("LR-7"), pageText);
+        }
+    }
+
+    @Test
+    void generateInvoicePdf_shouldPrintLetterheadItemsAndBankDetailsOnEveryCopy() throws Exception {
+        PdfGenerationService service = new PdfGenerationService(new String[]{"DUPLICATE COPY", "ORIGINAL COPY"});
+        Invoice invoice = invoice();
+        InvoiceItem second = new InvoiceItem();
+        second.setLrNo("LR-8");
+        second.setAmount(new BigDecimal("500.00"));
+        invoice.addItem(second);
+
+        PdfReader reader = new PdfReader(service.generateInvoicePdf(invoice));
+
+        assertEquals(2, reader.getNumberOfPages());
+        PdfTextExtractor text = new PdfTextExtractor(reader);
+        for (int page = 1; page <= 2; page++) {
+            String pageText = text.getTextFromPage(page);
+            assertTrue(pageText.contains("SHRIRAM LOGISTICS"), pageText);
+            assertTrue(pageText.contains("LR-7"), pageText);
+            assertTrue(pageText.contains("LR-8"), pageText);
+            assertTrue(pageText.contains("CNRB0016015"), pageText);
+        }
+    }
+
+    @Test
+    void constructor_shouldRequireAtLeastOneCopy() {
+        assertThrows(IllegalArgumentException.class, () -> new PdfGenerationService(new String[]{" "}));
+    }
+
+    private Invoice invoice() {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo("INV-7");
+        invoice.setInvoiceDate(LocalDate.of(2024, 8, 1));
+        invoice.setPartyName("Acme Freight Carriers");
+        invoice.setTotalAmount(new BigDecimal("1000.00"));
+        InvoiceItem item = new InvoiceItem();
+        item.setLrNo("LR-7");
+        item.setAmount(new BigDecimal("1000.00"));
+        invoice.addItem(item);
+        return invoice;
+    }
+}
@@ -0,0 +1,103 @@
+package com.invoice.app.service;
+
+import com.invoice.app.dto.StatementLineDTO;
+import com.invoice.app.entity.Invoice;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({StatementPdfService.class, PdfGenerationService.class})
+class StatementPdfTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PdfGenerationService pdfGenerationService;
+
+    @Autowired
+    private StatementPdfService statementPdfService;
+
+    @Test
+    void writeMonthlyStatementPdf_shouldTotalThePrintedRows() throws Exception {
+        List<StatementLineDTO> lines = List.of(
+                line(1L, "INV1", "250.50"),
+                line(2L, "INV2", null),
+                line(3L, "INV3", "49.50"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfGenerationService.writeMonthlyStatementPdf(lines, 2024, "August", out);
+
+        String text = new PdfTextExtractor(new PdfReader(out.toByteArray())).getTextFromPage(1);
+        assertTrue(text.contains("Total Invoices: 3    |    Total Amount: 300.00"), text);
+        assertTrue(text.indexOf("300.00", text.indexOf("TOTAL")) > 0, text);
+    }
+
+    @Test
+    void writeStatementPdf_shouldListEveryInvoiceInOrderWithHeadingsOnEachPage() throws Exception {
+        invoice("BEFORE", LocalDate.of(2024, 7, 31), "1.00");
+        // More than two load chunks (500) and many table flushes (100), with
+        // invoices sharing a date across chunk boundaries
+        int count = 1201;
+        for (int i = 1; i <= count; i++) {
+            invoice(String.format("INV%04d", i), LocalDate.of(2024, 8, 1 + (i - 1) / 50), "10.00");
+        }
+        invoice("AFTER", LocalDate.of(2024, 9, 1), "1.00");
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementPdfService.writeStatementPdf(LocalDate.of(2024, 8, 1), LocalDate.of(2024, 9, 1),
+                2024, "August", out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        PdfTextExtractor extractor = new PdfTextExtractor(reader);
+        StringBuilder text = new StringBuilder();
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            String pageText = extractor.getTextFromPage(page);
+            // Column headings once at the top of every page, not again after each flush
+            assertEquals(pageText.indexOf("Invoice No"), pageText.lastIndexOf("Invoice No"), "page " + page);
+            assertTrue(pageText.contains("Invoice No"), "page " + page);
+            text.append(pageText).append('\n');
+        }
+
+        String all = text.toString();
+        assertTrue(reader.getNumberOfPages() > 20, "pages " + reader.getNumberOfPages());
+        assertTrue(all.contains("Total Invoices: " + count), all.substring(0, 200));
+        assertTrue(all.contains("12,010.00"));
+        assertFalse(all.contains("BEFORE"));
+        assertFalse(all.contains("AFTER"));
+        int position = -1;
+        for (int i = 1; i <= count; i++) {
+            int next = all.indexOf(String.format("INV%04d", i));
+            assertTrue(next > position, "INV" + i + " missing or out of order");
+            position = next;
+        }
+        assertTrue(all.indexOf("TOTAL", position) > position);
+    }
+
+    private StatementLineDTO line(Long id, String invoiceNo, String totalAmount) {
+        return new StatementLineDTO(id, invoiceNo, LocalDate.of(2024, 8, 1), "Acme Freight", null, null,
+                totalAmount != null ? new BigDecimal(totalAmount) : null);
+    }
+
+    private Invoice invoice(String invoiceNo, LocalDate invoiceDate, String totalAmount) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNo(invoiceNo);
+        invoice.setInvoiceDate(invoiceDate);
+        invoice.setPartyName("Acme Freight");
+        invoice.setTotalAmount(totalAmount != null ? new BigDecimal(totalAmount) : null);
+        return entityManager.persist(invoice);
+    }
+}
@@ -11,12 +11,20 @@ CREATE TABLE IF NOT EXISTS clients (
     address VARCHAR(500),
     gst_number VARCHAR(20),
     phone VARCHAR(20),
-    email VARCHAR(100)
+    email VARCHAR(100),
+    version BIGINT DEFAULT 0 NOT NULL
 );
 
 CREATE INDEX IF NOT EXISTS idx_clients_name ON clients(name);
 CREATE INDEX IF NOT EXISTS idx_clients_gst_number ON clients(gst_number);
 
+-- =====================================================
+-- Id sequences for invoices and invoice_items
+-- Hibernate takes ids from these in blocks of 50 so that it can batch inserts
+-- =====================================================
+CREATE SEQUENCE IF NOT EXISTS invoices_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS invoice_items_seq START WITH 1 INCREMENT BY 50;
+
 -- =====================================================
 -- Table: invoices
 -- Description: Stores invoice header information
@@ -35,11 +43,14 @@ CREATE TABLE IF NOT EXISTS invoices (
     total_amount DECIMAL(12, 2) DEFAULT 0.00,
     amount_in_words VARCHAR(500),
     remarks VARCHAR(1000),
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP,
     CONSTRAINT fk_invoices_party FOREIGN KEY (party_id) REFERENCES clients(id) ON DELETE SET NULL
 );
 
 CREATE INDEX IF NOT EXISTS idx_invoices_invoice_no ON invoices(invoice_no);
 CREATE INDEX IF NOT EXISTS idx_invoices_invoice_date ON invoices(invoice_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_date_id ON invoices(invoice_date, id);
 CREATE INDEX IF NOT EXISTS idx_invoices_party_id ON invoices(party_id);
 
 -- =====================================================
@@ -65,12 +76,47 @@ CREATE TABLE IF NOT EXISTS invoice_items (
 CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice_id ON invoice_items(invoice_id);
 CREATE INDEX IF NOT EXISTS idx_invoice_items_lr_no ON invoice_items(lr_no);
 
+-- =====================================================
+-- Table: monthly_invoice_rollup
+-- Description: Running invoice totals per month, overall (empty party_name)
+--              and per party. Filled from invoices on startup while empty;
+--              POST /api/statements/rollup/rebuild recomputes it month by month
+--              while the application is running
+-- =====================================================
+CREATE TABLE IF NOT EXISTS monthly_invoice_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rollup_year INT NOT NULL,
+    rollup_month INT NOT NULL,
+    party_name VARCHAR(255) NOT NULL,
+    invoice_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    halting_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    loading_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    unloading_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    CONSTRAINT uk_monthly_invoice_rollup UNIQUE (rollup_year, rollup_month, party_name)
+);
+
+-- =====================================================
+-- Table: invoice_number_sequences
+-- Description: Next unallocated invoice number per prefix and fiscal year
+--              (empty when numbering does not restart each year)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS invoice_number_sequences (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    prefix VARCHAR(50) NOT NULL,
+    fiscal_year VARCHAR(10) NOT NULL,
+    next_value BIGINT NOT NULL,
+    CONSTRAINT uk_invoice_number_sequences UNIQUE (prefix, fiscal_year)
+);
+
 -- =====================================================
 -- Summary of Primary Keys:
 -- =====================================================
 -- clients.id          - AUTO_INCREMENT BIGINT (Primary Key)
--- invoices.id         - AUTO_INCREMENT BIGINT (Primary Key)
--- invoice_items.id    - AUTO_INCREMENT BIGINT (Primary Key)
+-- invoices.id         - BIGINT (Primary Key), assigned from invoices_seq
+-- invoice_items.id    - BIGINT (Primary Key), assigned from invoice_items_seq
+-- monthly_invoice_rollup.id - AUTO_INCREMENT BIGINT (Primary Key)
+-- invoice_number_sequences.id - AUTO_INCREMENT BIGINT (Primary Key)
 --
 -- Foreign Key Relationships:
 -- invoices.party_id -> clients.id (ON DELETE SET NULL)
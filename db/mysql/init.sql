@@ -19,10 +19,29 @@ CREATE TABLE IF NOT EXISTS clients (
     gst_number VARCHAR(20),
     phone VARCHAR(20),
     email VARCHAR(100),
+    version BIGINT NOT NULL DEFAULT 0,
     INDEX idx_clients_name (name),
     INDEX idx_clients_gst_number (gst_number)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =====================================================
+-- Id sequences for invoices and invoice_items
+-- MySQL has no sequences, so Hibernate keeps each in a one-row table and
+-- takes ids from it in blocks of 50 so that it can batch inserts. On startup
+-- the application moves next_val past the highest id already in use.
+-- =====================================================
+CREATE TABLE IF NOT EXISTS invoices_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO invoices_seq (next_val)
+    SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM invoices_seq);
+
+CREATE TABLE IF NOT EXISTS invoice_items_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+INSERT INTO invoice_items_seq (next_val)
+    SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM invoice_items_seq);
+
 -- =====================================================
 -- Table: invoices
 -- Description: Stores invoice header information
@@ -41,9 +60,12 @@ CREATE TABLE IF NOT EXISTS invoices (
     total_amount DECIMAL(12, 2) DEFAULT 0.00,
     amount_in_words VARCHAR(500),
     remarks VARCHAR(1000),
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at DATETIME,
     CONSTRAINT fk_invoices_party FOREIGN KEY (party_id) REFERENCES clients(id) ON DELETE SET NULL,
     INDEX idx_invoices_invoice_no (invoice_no),
     INDEX idx_invoices_invoice_date (invoice_date),
+    INDEX idx_invoices_date_id (invoice_date, id),
     INDEX idx_invoices_party_id (party_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -69,12 +91,47 @@ CREATE TABLE IF NOT EXISTS invoice_items (
     INDEX idx_invoice_items_lr_no (lr_no)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =====================================================
+-- Table: monthly_invoice_rollup
+-- Description: Running invoice totals per month, overall (empty party_name)
+--              and per party. Filled from invoices on startup while empty;
+--              POST /api/statements/rollup/rebuild recomputes it month by month
+--              while the application is running
+-- =====================================================
+CREATE TABLE IF NOT EXISTS monthly_invoice_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rollup_year INT NOT NULL,
+    rollup_month INT NOT NULL,
+    party_name VARCHAR(255) NOT NULL,
+    invoice_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    halting_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    loading_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    unloading_charges DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    CONSTRAINT uk_monthly_invoice_rollup UNIQUE (rollup_year, rollup_month, party_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- Table: invoice_number_sequences
+-- Description: Next unallocated invoice number per prefix and fiscal year
+--              (empty when numbering does not restart each year)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS invoice_number_sequences (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    prefix VARCHAR(50) NOT NULL,
+    fiscal_year VARCHAR(10) NOT NULL,
+    next_value BIGINT NOT NULL,
+    CONSTRAINT uk_invoice_number_sequences UNIQUE (prefix, fiscal_year)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- =====================================================
 -- Summary of Primary Keys:
 -- =====================================================
 -- clients.id          - AUTO_INCREMENT BIGINT (Primary Key)
--- invoices.id         - AUTO_INCREMENT BIGINT (Primary Key)
--- invoice_items.id    - AUTO_INCREMENT BIGINT (Primary Key)
+-- invoices.id         - BIGINT (Primary Key), assigned from invoices_seq
+-- invoice_items.id    - BIGINT (Primary Key), assigned from invoice_items_seq
+-- monthly_invoice_rollup.id - AUTO_INCREMENT BIGINT (Primary Key)
+-- invoice_number_sequences.id - AUTO_INCREMENT BIGINT (Primary Key)
 --
 -- Foreign Key Relationships:
 -- invoices.party_id -> clients.id (ON DELETE SET NULL)
@@ -87,6 +87,11 @@ export class ClientManagementComponent implements OnInit {
         },
         error: (err) => {
           console.error(err);
+          if (err.status === 409 || err.status === 412) {
+            this.snack.open('This client was changed by someone else. Reload and try again.', 'Close', { duration: 5000 });
+            this.loadClients();
+            return;
+          }
           this.snack.open('Failed to update client', 'Close', { duration: 3000 });
         }
       });
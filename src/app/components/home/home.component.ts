@@ -1,6 +1,6 @@
 import { Component } from '@angular/core';
 import { Router } from '@angular/router';
-import { InvoiceService, Invoice } from '../../services/invoice.service';
+import { InvoiceService, InvoiceSummary } from '../../services/invoice.service';
 
 @Component({
   selector: 'app-home',
@@ -11,7 +11,7 @@ export class HomeComponent {
   showSearchSection = false;
   searchInvoiceNo = '';
   searching = false;
-  searchResult: Invoice | null = null;
+  searchResult: InvoiceSummary | null = null;
   searchError = '';
 
   constructor(
@@ -50,7 +50,7 @@ export class HomeComponent {
     this.searchResult = null;
 
     this.invoiceService.searchInvoices(this.searchInvoiceNo.trim()).subscribe({
-      next: (results) => {
+      next: ({ invoices: results }) => {
         this.searching = false;
         if (results && results.length > 0) {
           this.searchResult = results[0];
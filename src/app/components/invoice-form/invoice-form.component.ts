@@ -46,6 +46,9 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
   saving = false;
   searching = false;
 
+  // Preview of the number a new invoice gets when saved with an empty invoice no
+  nextInvoiceNo = '';
+
   constructor(
     private svc: InvoiceService, 
     private snack: MatSnackBar,
@@ -95,11 +98,11 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
   loadNextInvoiceNumber() {
     this.svc.getNextInvoiceNumber().subscribe({
       next: (nextNo) => {
-        this.invoice.invoiceNo = nextNo;
+        this.nextInvoiceNo = nextNo;
       },
       error: (err) => {
         console.error('Failed to get next invoice number', err);
-        this.invoice.invoiceNo = 'INV001';
+        this.nextInvoiceNo = '';
       }
     });
   }
@@ -112,7 +115,7 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
 
     this.searchingInvoice = true;
     this.svc.searchInvoices(this.searchInvoiceNo.trim()).subscribe({
-      next: (results) => {
+      next: ({ invoices: results }) => {
         this.searchingInvoice = false;
         if (results && results.length > 0) {
           const inv = results[0];
@@ -213,8 +216,8 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
   }
 
   save() {
-    // basic validation
-    if (!this.invoice.invoiceNo || this.invoice.invoiceNo.trim() === '') {
+    // basic validation; new invoices without a number get one assigned by the server
+    if (this.editInvoiceId && (!this.invoice.invoiceNo || this.invoice.invoiceNo.trim() === '')) {
       this.snack.open('Invoice no required', 'ok', { duration: 2000 });
       return;
     }
@@ -233,7 +236,13 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
       next: (res: any) => {
         this.saving = false;
         const action = this.editInvoiceId ? 'updated' : 'saved';
-        this.snack.open(`Invoice ${action} (id: ${res.id})`, 'close', { duration: 3000 });
+        this.invoice.invoiceNo = res.invoiceNo;
+        if (this.editInvoiceId) {
+          // Keep editing against the saved version and item ids
+          this.invoice.version = res.version;
+          this.invoice.items = res.items;
+        }
+        this.snack.open(`Invoice ${res.invoiceNo} ${action} (id: ${res.id})`, 'close', { duration: 3000 });
         
         // Show print options popup
         this.showPrintOptions(res.id);
@@ -241,6 +250,10 @@ export class InvoiceFormComponent implements OnInit, OnDestroy {
       error: (err) => {
         console.error(err);
         this.saving = false;
+        if (err.status === 409 || err.status === 412) {
+          this.snack.open('This invoice was changed by someone else. Reload it before saving.', 'ok', { duration: 5000 });
+          return;
+        }
         this.snack.open('Save failed', 'retry', { duration: 3000 });
       }
     });
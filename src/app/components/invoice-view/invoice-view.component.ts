@@ -1,5 +1,5 @@
 import { Component } from '@angular/core';
-import { InvoiceService, Invoice } from '../../services/invoice.service';
+import { InvoiceService, Invoice, InvoiceSummary } from '../../services/invoice.service';
 
 @Component({
   selector: 'app-invoice-view',
@@ -9,7 +9,9 @@ import { InvoiceService, Invoice } from '../../services/invoice.service';
 export class InvoiceViewComponent {
   invoiceNo = '';
   lrNo = '';
-  results: Invoice[] = [];
+  results: InvoiceSummary[] = [];
+  // Set while the server has more matches than shown
+  nextCursor: string | null = null;
   selectedInvoice: Invoice | null = null;
   loading = false;
 
@@ -18,9 +20,24 @@ export class InvoiceViewComponent {
   search() {
     this.selectedInvoice = null;
     this.results = [];
+    this.nextCursor = null;
+    this.loadPage();
+  }
+
+  loadMore() {
+    if (this.nextCursor) {
+      this.loadPage(this.nextCursor);
+    }
+  }
+
+  private loadPage(cursor?: string) {
     this.loading = true;
-    this.svc.searchInvoices(this.invoiceNo || undefined, this.lrNo || undefined).subscribe({
-      next: res => { this.results = res; this.loading = false; },
+    this.svc.searchInvoices(this.invoiceNo || undefined, this.lrNo || undefined, cursor).subscribe({
+      next: page => {
+        this.results = [...this.results, ...page.invoices];
+        this.nextCursor = page.nextCursor;
+        this.loading = false;
+      },
       error: err => { console.error(err); this.loading = false; }
     });
   }
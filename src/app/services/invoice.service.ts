@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable } from 'rxjs';
+import { map } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
 
 export interface Client {
@@ -10,9 +11,13 @@ export interface Client {
   gstNumber?: string | null;
   phone?: string | null;
   email?: string | null;
+  // Sent back as If-Match on update so a concurrent edit is rejected instead of overwritten
+  version?: number;
 }
 
 export interface InvoiceItem {
+  // Sent back on update so the server edits the existing row instead of inserting a new one
+  id?: number;
   lrNo?: string;
   lrDate?: string;
   fromLocation?: string;
@@ -40,6 +45,23 @@ export interface Invoice {
   amountInWords?: string;
   remarks?: string;
   items?: InvoiceItem[];
+  // Sent back as If-Match on update so a concurrent edit is rejected instead of overwritten
+  version?: number;
+}
+
+// Returned by list/search endpoints with view=summary
+export interface InvoiceSummary {
+  id: number;
+  invoiceNo: string;
+  invoiceDate?: string;
+  partyName?: string;
+  totalAmount?: number;
+}
+
+// One page of search results; nextCursor is null on the last page
+export interface InvoiceSummaryPage {
+  invoices: InvoiceSummary[];
+  nextCursor: string | null;
 }
 
 @Injectable({ providedIn: 'root' })
@@ -64,11 +86,15 @@ export class InvoiceService {
   }
 
   // invoice.service.ts additions
-searchInvoices(invoiceNo?: string, lrNo?: string) {
-    const params: any = {};
+searchInvoices(invoiceNo?: string, lrNo?: string, cursor?: string): Observable<InvoiceSummaryPage> {
+    const params: any = { view: 'summary' };
     if (invoiceNo) params.invoiceNo = invoiceNo;
     if (lrNo) params.lrNo = lrNo;
-    return this.http.get<Invoice[]>(`${this.base}/invoices/search`, { params });
+    if (cursor) params.cursor = cursor;
+    // The server returns a page at a time; X-Next-Cursor fetches the next one
+    return this.http.get<InvoiceSummary[]>(`${this.base}/invoices/search`, { params, observe: 'response' }).pipe(
+      map(res => ({ invoices: res.body || [], nextCursor: res.headers.get('X-Next-Cursor') }))
+    );
   }
   
   getInvoice(id: number) {
@@ -90,7 +116,7 @@ searchInvoices(invoiceNo?: string, lrNo?: string) {
   }
 
   updateInvoice(id: number, inv: Invoice): Observable<any> {
-    return this.http.put(`${this.base}/invoices/${id}`, inv);
+    return this.http.put(`${this.base}/invoices/${id}`, inv, { headers: this.ifMatch(inv.version) });
   }
 
   getAllClients(): Observable<Client[]> {
@@ -98,7 +124,12 @@ searchInvoices(invoiceNo?: string, lrNo?: string) {
   }
 
   updateClient(id: number, client: Client): Observable<any> {
-    return this.http.put(`${this.base}/clients/${id}`, client);
+    return this.http.put(`${this.base}/clients/${id}`, client, { headers: this.ifMatch(client.version) });
+  }
+
+  // The server answers 412 when the record no longer has this version
+  private ifMatch(version?: number): HttpHeaders {
+    return version != null ? new HttpHeaders({ 'If-Match': `"${version}"` }) : new HttpHeaders();
   }
 
   getReportPdfUrl(startDate: string, endDate: string): string {